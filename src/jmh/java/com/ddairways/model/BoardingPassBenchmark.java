@@ -0,0 +1,101 @@
+package com.ddairways.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardingPassBenchmark {
+    private final Airport mumbai = new Airport("BOM", "Mumbai", "Asia/Kolkata");
+    private final Airport chennai = new Airport("MAA", "Chennai", "Asia/Kolkata");
+    private final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private final String pnr = "A1B2C3";
+    private final String seat = "10D";
+    private final String seqNo = "0018";
+    private final String gate = "45C";
+
+    @State(Scope.Benchmark)
+    public static class ChannelParam {
+        @Param({"MOBILE", "DESKTOP", "KIOSK", "AIRPORT_COUNTER", "THERMAL_PRINTER", "MOBILE_WALLET"})
+        public BoardingPass.Channel channel;
+    }
+
+    private BoardingPass boardingPass;
+    private byte[] mobileBoardingPass;
+    // a family of six checking in together
+    private final List<BoardingPass> group = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception {
+        boardingPass = new BoardingPass(flight, passenger, pnr, seat, seqNo, gate);
+        for (int i = 1; i <= 6; i++) {
+            group.add(new BoardingPass(flight, new Passenger("First" + i, "Last", "first.last@company.com", "Economy"), pnr, "10" + (char) ('A' + i - 1), seqNo, gate));
+        }
+        mobileBoardingPass = boardingPass.createPdfMobileBoardingPass();
+    }
+
+    @Benchmark
+    public byte[] createPdfMobileBoardingPass() throws Exception {
+        return boardingPass.createPdfMobileBoardingPass();
+    }
+
+    @Benchmark
+    public byte[] createPdfKioskBoardingPass() throws Exception {
+        return boardingPass.createPdfKioskBoardingPass();
+    }
+
+    @Benchmark
+    public byte[] createPdfKioskGroupBoardingPass() throws Exception {
+        return BoardingPass.createPdfKioskGroupBoardingPass(group);
+    }
+
+    @Benchmark
+    public byte[] createZplKioskBoardingPass() throws Exception {
+        return boardingPass.createZplKioskBoardingPass();
+    }
+
+    @Benchmark
+    public BufferedImage kioskPreview() throws Exception {
+        return boardingPass.kioskPreview(1280, false);
+    }
+
+    @Benchmark
+    public BufferedImage kioskDraftPreview() throws Exception {
+        return boardingPass.kioskPreview(1280, true);
+    }
+
+    @Benchmark
+    public byte[] createMobileWalletBundle() throws Exception {
+        return boardingPass.createMobileWalletBundle();
+    }
+
+    @Benchmark
+    public byte[] createPdfElectronicBoardingPass() throws Exception {
+        return boardingPass.createPdfElectronicBoardingPass();
+    }
+
+    @Benchmark
+    public byte[] createCalendarEventWithBoardingPass() throws Exception {
+        return boardingPass.createCalendarEventWithBoardingPass(mobileBoardingPass);
+    }
+
+    @Benchmark
+    public String flightBarcodeData() {
+        return flight.getBarcodeData();
+    }
+
+    @Benchmark
+    public List<byte[]> render(ChannelParam param) throws Exception {
+        return boardingPass.render(param.channel);
+    }
+}
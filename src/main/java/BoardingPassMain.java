@@ -5,8 +5,8 @@ import com.ddairways.model.Passenger;
 
 public class BoardingPassMain {
     public static void main(String[] args) throws Exception {
-        final Airport mumbai = new Airport("BOM", "Mumbai");
-        final Airport chennai = new Airport("MAA", "Chennai");
+        final Airport mumbai = new Airport("BOM", "Mumbai", "Asia/Kolkata");
+        final Airport chennai = new Airport("MAA", "Chennai", "Asia/Kolkata");
         final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
         final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
         final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
@@ -1,12 +1,21 @@
 package com.ddairways.model;
 
 public class Airport {
+    // DD Airways' home zone, for airports created without one
+    public static final String DEFAULT_TIME_ZONE_ID = "Asia/Kolkata";
+
     private String code;
     private String city;
+    private String timeZoneId;
 
     public Airport(String code, String city) {
+        this(code, city, DEFAULT_TIME_ZONE_ID);
+    }
+
+    public Airport(String code, String city, String timeZoneId) {
         this.code = code;
         this.city = city;
+        this.timeZoneId = timeZoneId;
     }
 
     public String getCode() {
@@ -17,6 +26,10 @@ public class Airport {
         return city;
     }
 
+    public String getTimeZoneId() {
+        return timeZoneId;
+    }
+
     @Override
     public String toString() {
         return String.format("%s (%s)", city, code);
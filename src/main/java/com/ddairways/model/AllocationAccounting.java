@@ -0,0 +1,182 @@
+package com.ddairways.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Instrumentation mode measuring the bytes the rendering thread allocates for
+// each artifact, from the JVM's per-thread allocation counter. Off by default;
+// with a budget set for a type, a render allocating more fails with
+// AllocationBudgetExceededException, so tests catch allocation regressions.
+// Budgeted types are rendered into a buffer first and only handed over once
+// within the budget, which costs a copy: budgets are meant for tests.
+public class AllocationAccounting {
+    private static final int TYPES = BoardingPass.Type.values().length;
+    private static final AllocationAccounting INSTANCE = new AllocationAccounting();
+
+    private final com.sun.management.ThreadMXBean threads;
+    private volatile boolean enabled;
+    private final LongAdder[] renders = adders();
+    private final LongAdder[] allocated = adders();
+    private final LongAccumulator[] largest = new LongAccumulator[TYPES];
+    private final LongAdder[] exceeded = adders();
+    // 0 when the type has no budget
+    private final AtomicLongArray budgets = new AtomicLongArray(TYPES);
+
+    private AllocationAccounting() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) bean : null;
+        for (int i = 0; i < TYPES; i++) {
+            largest[i] = new LongAccumulator(Math::max, 0);
+        }
+    }
+
+    public static AllocationAccounting getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isSupported() {
+        return threads != null;
+    }
+
+    public void enable() {
+        if (threads == null) {
+            throw new UnsupportedOperationException("This JVM does not count allocated bytes per thread");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setBudget(BoardingPass.Type type, long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Budget must be positive, was " + bytes);
+        }
+        budgets.set(type.ordinal(), bytes);
+    }
+
+    public void clearBudgets() {
+        for (int i = 0; i < TYPES; i++) {
+            budgets.set(i, 0);
+        }
+    }
+
+    // Allocation counter of the current thread to pass to finish, -1 when disabled.
+    long start() {
+        return enabled ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    // Failed renders are counted too, only completed ones are held to the budget.
+    void finish(BoardingPass.Type type, long start, boolean completed) {
+        if (start < 0) {
+            return;
+        }
+        final long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+        final int i = type.ordinal();
+        renders[i].increment();
+        allocated[i].add(bytes);
+        largest[i].accumulate(bytes);
+        final long budget = budgets.get(i);
+        if (completed && budget > 0 && bytes > budget) {
+            exceeded[i].increment();
+            throw new AllocationBudgetExceededException(type, bytes, budget);
+        }
+    }
+
+    boolean hasBudget(BoardingPass.Type type) {
+        return enabled && budgets.get(type.ordinal()) > 0;
+    }
+
+    public Map<BoardingPass.Type, Usage> snapshot() {
+        final Map<BoardingPass.Type, Usage> usage = new EnumMap<>(BoardingPass.Type.class);
+        for (BoardingPass.Type type : BoardingPass.Type.values()) {
+            final int i = type.ordinal();
+            usage.put(type, new Usage(renders[i].sum(), allocated[i].sum(), largest[i].get(), exceeded[i].sum(), budgets.get(i)));
+        }
+        return Collections.unmodifiableMap(usage);
+    }
+
+    public void reset() {
+        for (int i = 0; i < TYPES; i++) {
+            renders[i].reset();
+            allocated[i].reset();
+            largest[i].reset();
+            exceeded[i].reset();
+        }
+    }
+
+    // One line per rendered type: renders, mean and largest allocation, budget.
+    public String report() {
+        final StringBuilder report = new StringBuilder();
+        snapshot().forEach((type, usage) -> {
+            if (usage.getRenders() > 0) {
+                report.append(String.format("%-15s renders=%d mean=%dB max=%dB budget=%s exceeded=%d%n",
+                        type, usage.getRenders(), usage.getMeanBytes(), usage.getMaxBytes(),
+                        usage.getBudgetBytes() > 0 ? usage.getBudgetBytes() + "B" : "none", usage.getExceeded()));
+            }
+        });
+        return report.toString();
+    }
+
+    private static LongAdder[] adders() {
+        final LongAdder[] adders = new LongAdder[TYPES];
+        for (int i = 0; i < TYPES; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static final class Usage {
+        private final long renders;
+        private final long totalBytes;
+        private final long maxBytes;
+        private final long exceeded;
+        private final long budgetBytes;
+
+        private Usage(long renders, long totalBytes, long maxBytes, long exceeded, long budgetBytes) {
+            this.renders = renders;
+            this.totalBytes = totalBytes;
+            this.maxBytes = maxBytes;
+            this.exceeded = exceeded;
+            this.budgetBytes = budgetBytes;
+        }
+
+        public long getRenders() {
+            return renders;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getMeanBytes() {
+            return renders == 0 ? 0 : totalBytes / renders;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public long getExceeded() {
+            return exceeded;
+        }
+
+        // 0 when there is no budget
+        public long getBudgetBytes() {
+            return budgetBytes;
+        }
+    }
+}
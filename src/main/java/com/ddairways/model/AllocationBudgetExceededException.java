@@ -0,0 +1,29 @@
+package com.ddairways.model;
+
+// A render allocated more than the budget set in AllocationAccounting.
+public class AllocationBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final BoardingPass.Type type;
+    private final long allocatedBytes;
+    private final long budgetBytes;
+
+    AllocationBudgetExceededException(BoardingPass.Type type, long allocatedBytes, long budgetBytes) {
+        super(type + " render allocated " + allocatedBytes + " bytes, budget is " + budgetBytes);
+        this.type = type;
+        this.allocatedBytes = allocatedBytes;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public BoardingPass.Type getType() {
+        return type;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+}
@@ -0,0 +1,409 @@
+package com.ddairways.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rendered artifacts of a channel, keyed by a SHA-256 of every input that
+// affects the output: flight, passenger, pnr, seat, seqNo, gate, channel,
+// render options and the texts of the shared assets. A changed gate or seat
+// is a different key, so it can't be served stale. Memory is an LRU bounded
+// by artifact bytes; the optional disk tier keeps renders across restarts,
+// bounded by file bytes and evicting the files least recently used by mtime.
+public class ArtifactCache {
+    private final long maxBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+    // bytes of the entry files, counted from the directory on first use
+    private long diskBytes = -1;
+    private final Object disk = new Object();
+    private final Map<String, List<byte[]>> entries;
+    private long bytes;
+    // hash of the assets' texts, recomputed when they are reloaded
+    private volatile AssetsHash assetsHash = new AssetsHash(null, null);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder diskErrors = new LongAdder();
+
+    public ArtifactCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    // directory is the disk tier, null for memory only, bounded as memory is
+    public ArtifactCache(long maxBytes, Path directory) {
+        this(maxBytes, directory, maxBytes);
+    }
+
+    public ArtifactCache(long maxBytes, Path directory, long maxDiskBytes) {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        // access-ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public List<byte[]> render(BoardingPass boardingPass, BoardingPass.Channel channel) throws Exception {
+        return render(boardingPass, channel, RenderOptions.DEFAULT);
+    }
+
+    public List<byte[]> render(BoardingPass boardingPass, BoardingPass.Channel channel, RenderOptions options) throws Exception {
+        final String key = keyOf(boardingPass, channel) + "-" + hash(options.key(), assetsHash());
+        List<byte[]> artifacts;
+        synchronized (entries) {
+            artifacts = entries.get(key);
+        }
+        if (artifacts != null) {
+            hits.increment();
+            return copy(artifacts);
+        }
+        artifacts = read(key);
+        if (artifacts != null) {
+            diskHits.increment();
+        } else {
+            misses.increment();
+            // render outside the lock, a concurrent miss on the same key only costs a duplicate render
+            artifacts = boardingPass.render(channel, options);
+            write(key, artifacts);
+        }
+        put(key, artifacts);
+        return copy(artifacts);
+    }
+
+    // Drops every cached rendering of the pass for the channel, whatever the options.
+    public void invalidate(BoardingPass boardingPass, BoardingPass.Channel channel) throws IOException {
+        final String prefix = keyOf(boardingPass, channel) + "-";
+        synchronized (entries) {
+            final Iterator<Map.Entry<String, List<byte[]>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, List<byte[]>> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    bytes -= sizeOf(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        deleteFiles(prefix + "*");
+    }
+
+    public void invalidateAll() throws IOException {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+        deleteFiles("*");
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // disk tier reads and writes that failed, the renders were served regardless
+    public long getDiskErrors() {
+        return diskErrors.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long sizeInBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private void put(String key, List<byte[]> artifacts) {
+        final long size = sizeOf(artifacts);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            final List<byte[]> previous = entries.put(key, artifacts);
+            if (previous != null) {
+                bytes -= sizeOf(previous);
+            }
+            bytes += size;
+            final Iterator<List<byte[]>> eldest = entries.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= sizeOf(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private String assetsHash() {
+        final BoardingPassAssets assets = BoardingPassAssets.get();
+        AssetsHash cached = assetsHash;
+        if (cached.assets != assets) {
+            cached = new AssetsHash(assets, hash(assets.fingerprint()));
+            assetsHash = cached;
+        }
+        return cached.hash;
+    }
+
+    // An entry that cannot be read back whole (truncated, corrupt) is deleted and
+    // counts as a miss, the render replacing it.
+    private List<byte[]> read(String key) throws IOException {
+        if (directory == null) {
+            return null;
+        }
+        final Path file = fileOf(key);
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            discard(file);
+            return null;
+        }
+        final List<byte[]> artifacts = parse(content);
+        if (artifacts == null) {
+            discard(file);
+            return null;
+        }
+        // the mtime orders the files for eviction
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // evicted meanwhile, the artifacts read are still good
+        } catch (IOException e) {
+            // evicted early at worst, the artifacts read are still good
+            diskErrors.increment();
+        }
+        return artifacts;
+    }
+
+    // null unless the content is a complete entry
+    private static List<byte[]> parse(byte[] content) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        if (in.available() < 4) {
+            return null;
+        }
+        final int count = in.readInt();
+        if (count < 0 || count > in.available() / 4) {
+            return null;
+        }
+        final List<byte[]> artifacts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.available() < 4) {
+                return null;
+            }
+            final int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                return null;
+            }
+            final byte[] artifact = new byte[length];
+            in.readFully(artifact);
+            artifacts.add(artifact);
+        }
+        return in.available() == 0 ? artifacts : null;
+    }
+
+    // Written to a temporary file first, readers never see a partial entry. The
+    // disk tier only saves renders: a failure to write is counted, not thrown,
+    // and the temporary file deleted.
+    private void write(String key, List<byte[]> artifacts) {
+        if (directory == null) {
+            return;
+        }
+        final long size = 4 + 4L * artifacts.size() + sizeOf(artifacts);
+        if (size > maxDiskBytes) {
+            return;
+        }
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(artifacts.size());
+                for (byte[] artifact : artifacts) {
+                    out.writeInt(artifact.length);
+                    out.write(artifact);
+                }
+            }
+            final Path file = fileOf(key);
+            synchronized (disk) {
+                final long before = diskBytes();
+                final long replaced = Files.exists(file) ? Files.size(file) : 0;
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                temporary = null;
+                diskBytes = before - replaced + size;
+                if (diskBytes > maxDiskBytes) {
+                    evictFiles();
+                }
+            }
+        } catch (IOException e) {
+            diskErrors.increment();
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    // left behind, the entries' glob does not match it
+                }
+            }
+        }
+    }
+
+    // Deletes the least recently used files down to three quarters of the bound,
+    // so a full disk tier is not listed again on every write.
+    private void evictFiles() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        final Map<Path, FileTime> used = new HashMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.artifacts")) {
+            for (Path file : entries) {
+                files.add(file);
+                used.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        files.sort(Comparator.comparing(used::get));
+        final Iterator<Path> eldest = files.iterator();
+        while (diskBytes > maxDiskBytes / 4 * 3 && eldest.hasNext()) {
+            delete(eldest.next());
+        }
+    }
+
+    // an entry the render is going to replace anyway, even when it cannot be deleted
+    private void discard(Path file) {
+        try {
+            delete(file);
+        } catch (IOException e) {
+            // overwritten by the render's entry
+        }
+    }
+
+    private long diskBytes() throws IOException {
+        synchronized (disk) {
+            if (diskBytes < 0) {
+                long bytes = 0;
+                if (Files.isDirectory(directory)) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.artifacts")) {
+                        for (Path file : files) {
+                            bytes += Files.size(file);
+                        }
+                    }
+                }
+                diskBytes = bytes;
+            }
+            return diskBytes;
+        }
+    }
+
+    private void delete(Path file) throws IOException {
+        synchronized (disk) {
+            final long total = diskBytes();
+            try {
+                final long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes = total - size;
+                }
+            } catch (NoSuchFileException e) {
+                // deleted meanwhile
+            }
+        }
+    }
+
+    // size of the disk tier's files in bytes, 0 without one
+    public long sizeOnDisk() throws IOException {
+        return directory == null ? 0 : diskBytes();
+    }
+
+    private void deleteFiles(String glob) throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob + ".artifacts")) {
+            for (Path file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + ".artifacts");
+    }
+
+    private static String keyOf(BoardingPass boardingPass, BoardingPass.Channel channel) {
+        final Flight flight = boardingPass.getFlight();
+        final Passenger passenger = boardingPass.getPassenger();
+        return hash(channel.name(),
+                flight.getCode(), flight.getNumber(),
+                flight.getOrigin().getCode(), flight.getOrigin().getCity(), flight.getOrigin().getTimeZoneId(),
+                flight.getDestination().getCode(), flight.getDestination().getCity(), flight.getDestination().getTimeZoneId(),
+                Long.toString(flight.getDeparture().getTime()), Integer.toString(flight.getDurationInHours()),
+                passenger.getFirstName(), passenger.getLastName(), passenger.getEmail(), passenger.getTravelClass(),
+                boardingPass.getPnr(), boardingPass.getSeat(), boardingPass.getSeqNo(), boardingPass.getGate());
+    }
+
+    // length-prefixed, so ("ab", "c") and ("a", "bc") hash differently
+    private static String hash(String... fields) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String field : fields) {
+            if (field == null) {
+                digest.update((byte) 0xff);
+                continue;
+            }
+            final byte[] utf8 = field.getBytes(StandardCharsets.UTF_8);
+            digest.update(new byte[]{(byte) (utf8.length >>> 24), (byte) (utf8.length >>> 16), (byte) (utf8.length >>> 8), (byte) utf8.length});
+            digest.update(utf8);
+        }
+        final StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static long sizeOf(List<byte[]> artifacts) {
+        long size = 0;
+        for (byte[] artifact : artifacts) {
+            size += artifact.length;
+        }
+        return size;
+    }
+
+    // callers get their own arrays, the cached ones stay untouched
+    private static List<byte[]> copy(List<byte[]> artifacts) {
+        final List<byte[]> copy = new ArrayList<>(artifacts.size());
+        for (byte[] artifact : artifacts) {
+            copy.add(artifact.clone());
+        }
+        return copy;
+    }
+
+    private static final class AssetsHash {
+        private final BoardingPassAssets assets;
+        private final String hash;
+
+        private AssetsHash(BoardingPassAssets assets, String hash) {
+            this.assets = assets;
+            this.hash = hash;
+        }
+    }
+}
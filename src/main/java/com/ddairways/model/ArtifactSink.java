@@ -0,0 +1,82 @@
+package com.ddairways.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Destination of every artifact rendered for a channel. The renderer opens
+// one stream per artifact, writes it directly and closes it when done.
+public interface ArtifactSink {
+    OutputStream open(BoardingPass.Type type) throws IOException;
+
+    // Sinks that cannot take two artifacts at once (a zip) get them one after
+    // another, in the order of Channel.artifacts().
+    default boolean acceptsConcurrentWrites() {
+        return true;
+    }
+
+    // Streams stay open, they belong to the caller.
+    static ArtifactSink toStreams(Map<BoardingPass.Type, ? extends OutputStream> streams) {
+        return type -> new NonClosingOutputStream(lookup(streams, type));
+    }
+
+    // Channels stay open, they belong to the caller.
+    static ArtifactSink toChannels(Map<BoardingPass.Type, ? extends WritableByteChannel> channels) {
+        return type -> new NonClosingOutputStream(Channels.newOutputStream(lookup(channels, type)));
+    }
+
+    static ArtifactSink toPaths(Map<BoardingPass.Type, Path> paths) {
+        return type -> new BufferedOutputStream(new StageOutputStream(Files.newOutputStream(lookup(paths, type)), RenderEvent.Stage.WRITE));
+    }
+
+    static ArtifactSink toZip(ZipOutputStream zip, Map<BoardingPass.Type, String> entryNames) {
+        return new ArtifactSink() {
+            @Override
+            public OutputStream open(BoardingPass.Type type) throws IOException {
+                zip.putNextEntry(new ZipEntry(lookup(entryNames, type)));
+                return new BufferedOutputStream(new StageOutputStream(new NonClosingOutputStream(zip) {
+                    @Override
+                    public void close() throws IOException {
+                        zip.closeEntry();
+                    }
+                }, RenderEvent.Stage.ZIP));
+            }
+
+            @Override
+            public boolean acceptsConcurrentWrites() {
+                return false;
+            }
+        };
+    }
+
+    // The same destinations, taking one artifact after another: the whole render
+    // runs on the calling thread, under its interrupts and its thread limits.
+    static ArtifactSink oneAtATime(ArtifactSink sink) {
+        return new ArtifactSink() {
+            @Override
+            public OutputStream open(BoardingPass.Type type) throws IOException {
+                return sink.open(type);
+            }
+
+            @Override
+            public boolean acceptsConcurrentWrites() {
+                return false;
+            }
+        };
+    }
+
+    private static <T> T lookup(Map<BoardingPass.Type, T> destinations, BoardingPass.Type type) {
+        final T destination = destinations.get(type);
+        if (destination == null) {
+            throw new IllegalArgumentException("No destination for " + type + " artifact");
+        }
+        return destination;
+    }
+}
@@ -0,0 +1,278 @@
+package com.ddairways.model;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.codec.CCITTG4Encoder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BarcodeImageCache {
+    private static final BarcodeImageCache INSTANCE = new BarcodeImageCache(2048);
+
+    private final int capacity;
+    private final Map<Key, Barcode> images;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BarcodeImageCache(int capacity) {
+        this.capacity = capacity;
+        // access-ordered, so the eldest entry is the least recently used one
+        this.images = new LinkedHashMap<Key, Barcode>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Barcode> eldest) {
+                return size() > BarcodeImageCache.this.capacity;
+            }
+        };
+    }
+
+    public static BarcodeImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    public Image get(String text, BarcodeFormat format, int width, int height) throws WriterException, IOException, BadElementException {
+        return get(text, format, width, height, BarcodeStyle.JPEG, null);
+    }
+
+    // writer is the document the image goes into, only VECTOR barcodes need it
+    public Image get(String text, BarcodeFormat format, int width, int height, BarcodeStyle style, PdfWriter writer) throws WriterException, IOException, BadElementException {
+        return barcode(new Key(text, format, width, height, style)).toImage(writer);
+    }
+
+    // The modules of a barcode as rectangles, for drawing it without a PDF.
+    Barcode modules(String text, BarcodeFormat format, int width, int height) throws WriterException, IOException, BadElementException {
+        return barcode(new Key(text, format, width, height, BarcodeStyle.VECTOR));
+    }
+
+    private Barcode barcode(Key key) throws WriterException, IOException, BadElementException {
+        Barcode barcode;
+        synchronized (images) {
+            barcode = images.get(key);
+        }
+        if (barcode != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // encode outside the lock, a concurrent miss on the same key only costs a duplicate encode
+            barcode = encode(key);
+            synchronized (images) {
+                images.put(key, barcode);
+            }
+        }
+        return barcode;
+    }
+
+    private Barcode encode(Key key) throws WriterException, IOException, BadElementException {
+        RenderEvent event = RenderEvent.start(RenderEvent.Stage.BARCODE);
+        BitMatrix bitMatrix = new MultiFormatWriter().encode(key.text, key.format, key.width, key.height);
+        event.finish(0);
+
+        event = RenderEvent.start(RenderEvent.Stage.IMAGE);
+        final Barcode barcode;
+        switch (key.style) {
+            case CCITT:
+                barcode = new Barcode(ccitt(bitMatrix));
+                break;
+            case VECTOR:
+                barcode = new Barcode(bitMatrix.getWidth(), bitMatrix.getHeight(), rectangles(bitMatrix));
+                break;
+            default:
+                BufferedImage image = MatrixToImageWriter.toBufferedImage(bitMatrix);
+                ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+                ImageIO.write(image, "jpg", jpeg);
+                barcode = new Barcode(Image.getInstance(jpeg.toByteArray()));
+        }
+        event.finish(barcode.size());
+        return barcode;
+    }
+
+    private static Image ccitt(BitMatrix bitMatrix) throws BadElementException {
+        final int width = bitMatrix.getWidth();
+        final int height = bitMatrix.getHeight();
+        final int rowBytes = (width + 7) / 8;
+        // packed rows, a set bit is a black module
+        final byte[] bits = new byte[rowBytes * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (bitMatrix.get(x, y)) {
+                    bits[y * rowBytes + x / 8] |= 0x80 >> (x % 8);
+                }
+            }
+        }
+        return Image.getInstance(width, height, false, Image.CCITTG4, 0, CCITTG4Encoder.compress(bits, width, height));
+    }
+
+    // Black modules as {x, y, width, height} quads with y counted from the top:
+    // horizontal runs are merged per row and identical consecutive rows share one band.
+    static int[] rectangles(BitMatrix bitMatrix) {
+        final int width = bitMatrix.getWidth();
+        final int height = bitMatrix.getHeight();
+        int[] rectangles = new int[64];
+        int count = 0;
+        int y = 0;
+        while (y < height) {
+            int band = 1;
+            while (y + band < height && sameRow(bitMatrix, y, y + band)) {
+                band++;
+            }
+            int x = 0;
+            while (x < width) {
+                if (!bitMatrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int run = 1;
+                while (x + run < width && bitMatrix.get(x + run, y)) {
+                    run++;
+                }
+                if (count + 4 > rectangles.length) {
+                    rectangles = Arrays.copyOf(rectangles, rectangles.length * 2);
+                }
+                rectangles[count++] = x;
+                rectangles[count++] = y;
+                rectangles[count++] = run;
+                rectangles[count++] = band;
+                x += run;
+            }
+            y += band;
+        }
+        return Arrays.copyOf(rectangles, count);
+    }
+
+    private static boolean sameRow(BitMatrix bitMatrix, int y1, int y2) {
+        for (int x = 0; x < bitMatrix.getWidth(); x++) {
+            if (bitMatrix.get(x, y1) != bitMatrix.get(x, y2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (images) {
+            images.clear();
+        }
+    }
+
+    // Either a document independent image or the rectangles of a vector barcode,
+    // which has to be drawn into a template of the document it is placed in.
+    static class Barcode {
+        private final Image image;
+        private final int width;
+        private final int height;
+        private final int[] rectangles;
+
+        private Barcode(Image image) {
+            this.image = image;
+            this.width = (int) image.getWidth();
+            this.height = (int) image.getHeight();
+            this.rectangles = null;
+        }
+
+        private Barcode(int width, int height, int[] rectangles) {
+            this.image = null;
+            this.width = width;
+            this.height = height;
+            this.rectangles = rectangles;
+        }
+
+        int getWidth() {
+            return width;
+        }
+
+        int getHeight() {
+            return height;
+        }
+
+        // see BarcodeImageCache.rectangles, shared: not to be modified
+        int[] getRectangles() {
+            return rectangles;
+        }
+
+        private Image toImage(PdfWriter writer) throws BadElementException {
+            if (image != null) {
+                // Image carries per-document state (position, scaling), so every
+                // caller gets its own copy sharing the cached image data.
+                return Image.getInstance(image);
+            }
+            if (writer == null) {
+                throw new IllegalArgumentException("Vector barcodes need the PdfWriter they are drawn for");
+            }
+            final RenderEvent event = RenderEvent.start(RenderEvent.Stage.IMAGE);
+            // one unit per module like the raster images, so placement and scaling stay the same
+            PdfTemplate template = PdfTemplate.createTemplate(writer, width, height);
+            for (int i = 0; i < rectangles.length; i += 4) {
+                template.rectangle(rectangles[i], height - rectangles[i + 1] - rectangles[i + 3], rectangles[i + 2], rectangles[i + 3]);
+            }
+            template.fill();
+            event.finish(template.getInternalBuffer().size());
+            return Image.getInstance(template);
+        }
+
+        // bytes of the embedded image, or of the rectangles for a vector barcode
+        private long size() {
+            if (image != null) {
+                return image.getRawData() != null ? image.getRawData().length : 0;
+            }
+            return rectangles.length * 4L;
+        }
+    }
+
+    private static class Key {
+        private final String text;
+        private final BarcodeFormat format;
+        private final int width;
+        private final int height;
+        private final BarcodeStyle style;
+
+        private Key(String text, BarcodeFormat format, int width, int height, BarcodeStyle style) {
+            this.text = text;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.style = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return width == other.width && height == other.height
+                    && format == other.format && style == other.style && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, format, width, height, style);
+        }
+    }
+}
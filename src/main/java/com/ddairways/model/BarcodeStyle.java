@@ -0,0 +1,11 @@
+package com.ddairways.model;
+
+// How barcodes are embedded into the PDF artifacts.
+public enum BarcodeStyle {
+    // BitMatrix rasterized and compressed as a JPEG image
+    JPEG,
+    // 1-bit image compressed with CCITT Group 4, lossless and a fraction of the JPEG size
+    CCITT,
+    // modules drawn as filled rectangles, merged per run and per band of identical rows
+    VECTOR
+}
@@ -0,0 +1,116 @@
+package com.ddairways.model;
+
+import com.ddairways.model.BcbpPayload.Field;
+
+import java.util.Arrays;
+
+// Writes a fixed-width IATA BCBP-style payload (mandatory items of a single
+// leg plus the gate as airline data) into a caller supplied, reusable buffer,
+// copying characters straight from the boarding pass without building Strings.
+// Standalone: the rendered barcodes keep their own content (see getBarcodeText
+// in BoardingPass), this payload is for systems exchanging BCBP data.
+public final class BcbpEncoder {
+    private BcbpEncoder() {
+    }
+
+    public static int encode(BoardingPass boardingPass, byte[] buffer, int offset) {
+        if (buffer.length - offset < BcbpPayload.LENGTH) {
+            throw new IllegalArgumentException("Buffer needs " + BcbpPayload.LENGTH + " bytes");
+        }
+        Arrays.fill(buffer, offset, offset + BcbpPayload.LENGTH, (byte) ' ');
+        final Flight flight = boardingPass.getFlight();
+        final Passenger passenger = boardingPass.getPassenger();
+
+        buffer[offset + Field.FORMAT_CODE.offset] = 'M';
+        buffer[offset + Field.NUMBER_OF_LEGS.offset] = '1';
+        writeName(passenger, buffer, offset + Field.PASSENGER_NAME.offset);
+        buffer[offset + Field.ELECTRONIC_TICKET.offset] = 'E';
+        writeText(boardingPass.getPnr(), buffer, offset, Field.PNR);
+        writeText(flight.originAirportCode(), buffer, offset, Field.FROM_AIRPORT);
+        writeText(flight.destinationAirportCode(), buffer, offset, Field.TO_AIRPORT);
+        writeText(flight.getCode(), buffer, offset, Field.CARRIER);
+        writeNumberWithSuffix(flight.getNumber(), buffer, offset + Field.FLIGHT_NUMBER.offset, 4);
+        writeDigits(flight.snapshot().getDepartureDayOfYear(), buffer, offset + Field.JULIAN_DATE.offset, 3);
+        buffer[offset + Field.COMPARTMENT.offset] = (byte) compartmentOf(passenger.getTravelClass());
+        writeNumberWithSuffix(boardingPass.getSeat(), buffer, offset + Field.SEAT.offset, 3);
+        writeNumberWithSuffix(boardingPass.getSeqNo(), buffer, offset + Field.SEQUENCE_NUMBER.offset, 4);
+        // checked in
+        buffer[offset + Field.PASSENGER_STATUS.offset] = '1';
+        writeHex(BcbpPayload.AIRLINE_DATA_LENGTH, buffer, offset + Field.AIRLINE_DATA_SIZE.offset);
+        writeText(boardingPass.getGate(), buffer, offset, Field.GATE);
+        return BcbpPayload.LENGTH;
+    }
+
+    // LAST/FIRST, upper case, truncated to the field
+    private static void writeName(Passenger passenger, byte[] buffer, int position) {
+        final int end = position + Field.PASSENGER_NAME.length;
+        position = copy(passenger.getLastName(), buffer, position, end);
+        if (position < end) {
+            buffer[position++] = '/';
+        }
+        copy(passenger.getFirstName(), buffer, position, end);
+    }
+
+    // only the name may be truncated, a cut PNR, airport, carrier or gate is a different one
+    private static void writeText(String text, byte[] buffer, int offset, Field field) {
+        if (text.length() > field.length) {
+            throw new IllegalArgumentException(text + " does not fit the " + field.length + " characters of " + field);
+        }
+        final int position = offset + field.offset;
+        copy(text, buffer, position, position + field.length);
+    }
+
+    private static int copy(String text, byte[] buffer, int position, int end) {
+        for (int i = 0; i < text.length() && position < end; i++) {
+            buffer[position++] = ascii(Character.toUpperCase(text.charAt(i)));
+        }
+        return position;
+    }
+
+    // "465" -> "0465 ", "10D" -> "010D", "0018" -> "0018 "
+    private static void writeNumberWithSuffix(String value, byte[] buffer, int position, int digits) {
+        int digitCount = 0;
+        while (digitCount < value.length() && Character.isDigit(value.charAt(digitCount))) {
+            digitCount++;
+        }
+        if (digitCount > digits || value.length() - digitCount > 1) {
+            throw new IllegalArgumentException(value + " does not fit " + digits + " digits and a one character suffix");
+        }
+        for (int i = 0; i < digits - digitCount; i++) {
+            buffer[position++] = '0';
+        }
+        for (int i = 0; i < digitCount; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+        buffer[position] = digitCount < value.length() ? ascii(Character.toUpperCase(value.charAt(digitCount))) : (byte) ' ';
+    }
+
+    private static void writeDigits(int value, byte[] buffer, int position, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeHex(int value, byte[] buffer, int position) {
+        buffer[position] = (byte) Character.toUpperCase(Character.forDigit(value >> 4 & 0xF, 16));
+        buffer[position + 1] = (byte) Character.toUpperCase(Character.forDigit(value & 0xF, 16));
+    }
+
+    private static char compartmentOf(String travelClass) {
+        if ("First".equalsIgnoreCase(travelClass)) {
+            return 'F';
+        }
+        if ("Business".equalsIgnoreCase(travelClass)) {
+            return 'J';
+        }
+        if ("Premium Economy".equalsIgnoreCase(travelClass)) {
+            return 'W';
+        }
+        return 'Y';
+    }
+
+    private static byte ascii(char c) {
+        return c < 128 ? (byte) c : (byte) '?';
+    }
+}
@@ -0,0 +1,138 @@
+package com.ddairways.model;
+
+import java.nio.charset.StandardCharsets;
+
+// Reusable read-only view over a scanned IATA BCBP-style payload. Fields are
+// read straight out of the scanned bytes; numeric and single character fields
+// are decoded without allocating, text fields only when asked for. Reads what
+// BcbpEncoder writes, not the content of the rendered barcodes.
+public final class BcbpPayload {
+    public enum Field {
+        FORMAT_CODE(0, 1),
+        NUMBER_OF_LEGS(1, 1),
+        PASSENGER_NAME(2, 20),
+        ELECTRONIC_TICKET(22, 1),
+        PNR(23, 7),
+        FROM_AIRPORT(30, 3),
+        TO_AIRPORT(33, 3),
+        CARRIER(36, 3),
+        FLIGHT_NUMBER(39, 5),
+        JULIAN_DATE(44, 3),
+        COMPARTMENT(47, 1),
+        SEAT(48, 4),
+        SEQUENCE_NUMBER(52, 5),
+        PASSENGER_STATUS(57, 1),
+        AIRLINE_DATA_SIZE(58, 2),
+        // airline individual use
+        GATE(60, 4);
+
+        final int offset;
+        final int length;
+
+        Field(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public static final int LENGTH = 64;
+    static final int AIRLINE_DATA_LENGTH = Field.GATE.length;
+
+    private byte[] data;
+    private int offset;
+
+    public BcbpPayload wrap(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IllegalArgumentException(length + " bytes at " + offset + " are outside the " + data.length + " bytes scanned");
+        }
+        if (length < LENGTH || data[offset] != 'M' || !isDigit(data[offset + Field.NUMBER_OF_LEGS.offset])) {
+            throw new IllegalArgumentException("Not a boarding pass payload");
+        }
+        this.data = data;
+        this.offset = offset;
+        return this;
+    }
+
+    public BcbpPayload wrap(byte[] data) {
+        return wrap(data, 0, data.length);
+    }
+
+    public String get(Field field) {
+        int end = offset + field.offset + field.length;
+        while (end > offset + field.offset && data[end - 1] == ' ') {
+            end--;
+        }
+        final int start = offset + field.offset;
+        return new String(data, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    public boolean matches(Field field, CharSequence expected) {
+        final int start = offset + field.offset;
+        if (expected.length() > field.length) {
+            return false;
+        }
+        for (int i = 0; i < field.length; i++) {
+            final char actual = (char) data[start + i];
+            if (i < expected.length() ? actual != expected.charAt(i) : actual != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public char getChar(Field field) {
+        return (char) data[offset + field.offset];
+    }
+
+    public int getFlightNumber() {
+        return number(Field.FLIGHT_NUMBER.offset, 4);
+    }
+
+    public char getFlightNumberSuffix() {
+        return getChar(Field.FLIGHT_NUMBER, 4);
+    }
+
+    public int getJulianDate() {
+        return number(Field.JULIAN_DATE.offset, 3);
+    }
+
+    public char getCompartment() {
+        return getChar(Field.COMPARTMENT);
+    }
+
+    public int getSeatRow() {
+        return number(Field.SEAT.offset, 3);
+    }
+
+    public char getSeatLetter() {
+        return getChar(Field.SEAT, 3);
+    }
+
+    public int getSequenceNumber() {
+        return number(Field.SEQUENCE_NUMBER.offset, 4);
+    }
+
+    public char getPassengerStatus() {
+        return getChar(Field.PASSENGER_STATUS);
+    }
+
+    private char getChar(Field field, int index) {
+        return (char) data[offset + field.offset + index];
+    }
+
+    private int number(int fieldOffset, int digits) {
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            final byte digit = data[offset + fieldOffset + i];
+            if (!isDigit(digit)) {
+                throw new IllegalArgumentException("Not a digit at position " + (fieldOffset + i));
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
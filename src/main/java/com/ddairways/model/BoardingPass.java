@@ -1,42 +1,77 @@
 package com.ddairways.model;
 
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.draw.DottedLineSeparator;
-import net.fortuna.ical4j.data.CalendarOutputter;
 import net.fortuna.ical4j.model.*;
 import net.fortuna.ical4j.model.component.VAlarm;
 import net.fortuna.ical4j.model.component.VEvent;
 import net.fortuna.ical4j.model.component.VTimeZone;
 import net.fortuna.ical4j.model.parameter.*;
 import net.fortuna.ical4j.model.property.*;
-import net.fortuna.ical4j.util.UidGenerator;
 import org.apache.commons.lang.StringUtils;
 
-import javax.imageio.ImageIO;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-import java.util.zip.ZipEntry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.ZipOutputStream;
 
 public class BoardingPass {
     public enum Channel {
-        MOBILE, DESKTOP, KIOSK, AIRPORT_COUNTER;
+        MOBILE(Type.MOBILE, Type.CALENDAR_EVENT),
+        DESKTOP(Type.ELECTRONIC, Type.CALENDAR_EVENT),
+        KIOSK(Type.KIOSK),
+        AIRPORT_COUNTER(Type.KIOSK),
+        // kiosks and counters printing straight on a ZPL boarding pass printer
+        THERMAL_PRINTER(Type.KIOSK_ZPL),
+        // phones showing the pass and its barcode natively
+        MOBILE_WALLET(Type.MOBILE_WALLET);
+
+        private final List<Type> artifacts;
+
+        Channel(Type... artifacts) {
+            this.artifacts = Collections.unmodifiableList(Arrays.asList(artifacts));
+        }
+
+        public List<Type> artifacts() {
+            return artifacts;
+        }
     }
 
     public enum Type {
-        MOBILE, ELECTRONIC, KIOSK, CALENDAR_EVENT;
+        MOBILE, ELECTRONIC, KIOSK,
+        // calendar event carries the mobile boarding pass as an attachment
+        CALENDAR_EVENT(MOBILE),
+        // kiosk boarding pass as a printer command stream instead of a PDF
+        KIOSK_ZPL,
+        // mobile boarding pass as fields and barcode payload instead of a PDF
+        MOBILE_WALLET;
+
+        private final List<Type> dependencies;
+
+        Type(Type... dependencies) {
+            this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+        }
+
+        public List<Type> dependencies() {
+            return dependencies;
+        }
     }
 
+    private static final float[] DETAILS_WIDTHS = {225, 225, 5, 190};
+    private static final float[] MOBILE_DETAILS_WIDTHS = {110, 110};
+
     private final Flight flight;
     private final Passenger passenger;
     private final String pnr;
@@ -57,6 +92,30 @@ public class BoardingPass {
         this.gate = StringUtils.isEmpty(gate) ? "" : gate;
     }
 
+    public Flight getFlight() {
+        return flight;
+    }
+
+    public Passenger getPassenger() {
+        return passenger;
+    }
+
+    public String getPnr() {
+        return pnr;
+    }
+
+    public String getSeat() {
+        return seat;
+    }
+
+    public String getSeqNo() {
+        return seqNo;
+    }
+
+    public String getGate() {
+        return gate;
+    }
+
     private PdfPCell cell(Phrase phrase) {
         PdfPCell cell = new PdfPCell(phrase);
         cell.setBorder(Rectangle.NO_BORDER);
@@ -87,58 +146,90 @@ public class BoardingPass {
     private void rotate(PdfContentByte contentByte, Image image, int x, int y, float angleInRadians, float scaleWidthFactor, float scaleHeightFactor) throws DocumentException {
 //        contentByte.addImage(image, image.getWidth(), 0, 0, image.getHeight(), x, y);
         // Draw image as if the previous image was rotated around its center
-        AffineTransform A = AffineTransform.getTranslateInstance(-0.5, -0.5);
-        // Stretch it to its dimensions
-        AffineTransform B = AffineTransform.getScaleInstance(image.getWidth() * scaleWidthFactor, image.getHeight() * scaleHeightFactor);
-        // Rotate it
-        AffineTransform C = AffineTransform.getRotateInstance(angleInRadians);
-        // Move it to have the same center as above
-        AffineTransform D = AffineTransform.getTranslateInstance(x + image.getWidth()/2, y + image.getHeight()/2);
-        // Concatenate
-        AffineTransform M = (AffineTransform) A.clone();
-        M.preConcatenate(B);
-        M.preConcatenate(C);
-        M.preConcatenate(D);
-        //Draw
-        contentByte.addImage(image, M);
-    }
-
-    private byte [] createPdfElectronicBoardingPass() throws IOException, DocumentException, WriterException {
+        // M = D.C.B.A, with
+        // A centering the unit square on the origin,
+        // B stretching it to the image dimensions,
+        // C rotating it
+        // and D moving it to have the same center as the unrotated image
+        final RenderContext context = RenderContext.acquire();
+        try {
+            AffineTransform M = context.transform();
+            M.translate(x + image.getWidth()/2, y + image.getHeight()/2);
+            M.rotate(angleInRadians);
+            M.scale(image.getWidth() * scaleWidthFactor, image.getHeight() * scaleHeightFactor);
+            M.translate(-0.5, -0.5);
+            //Draw
+            contentByte.addImage(image, M);
+        } finally {
+            context.release();
+        }
+    }
+
+    byte [] createPdfElectronicBoardingPass() throws IOException, DocumentException, WriterException {
         final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writePdfElectronicBoardingPass(os, RenderOptions.DEFAULT);
+        return os.toByteArray();
+    }
+
+    // PdfWriter of an artifact, leaves the destination open
+    private static PdfWriter pdfWriter(Document document, OutputStream os, RenderOptions options) throws DocumentException {
+        final PdfWriter pdfWriter;
+        if (options.isDeterministic()) {
+            // closing the writer closes the ID stream, which patches in the document ID
+            pdfWriter = PdfWriter.getInstance(document, new DocumentIdOutputStream(os));
+        } else {
+            pdfWriter = PdfWriter.getInstance(document, os);
+            pdfWriter.setCloseStream(false);
+        }
+        if (options.isDeterministic() || options.isCompact()) {
+            pdfWriter.getInfo().remove(PdfName.CREATIONDATE);
+            pdfWriter.getInfo().remove(PdfName.MODDATE);
+        }
+        if (options.isCompact()) {
+            pdfWriter.setFullCompression();
+            pdfWriter.setCompressionLevel(PdfStream.BEST_COMPRESSION);
+            pdfWriter.getInfo().remove(PdfName.PRODUCER);
+        }
+        return pdfWriter;
+    }
+
+    private void writePdfElectronicBoardingPass(OutputStream os, RenderOptions options) throws IOException, DocumentException, WriterException {
+        final BoardingPassAssets assets = BoardingPassAssets.get();
         Document document = new Document();
-        final PdfWriter pdfWriter = PdfWriter.getInstance(document, os);
+        final PdfWriter pdfWriter = pdfWriter(document, os, options);
 
         document.open();
 
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(new float[] {225,225,5,190}, document.getPageSize());
+        PdfPTable table = detailsTable(electronicDetails(), DETAILS_WIDTHS, document.getPageSize());
 
         // Generate Barcode PDF417
-        MultiFormatWriter writer = new MultiFormatWriter();
-//        Map<EncodeHintType, String> hints = new HashMap<>();
-//        hints.put(EncodeHintType.CHARACTER_SET, "ISO-8859-1");
-        BitMatrix bitMatrix = writer.encode(getBarcodeText(Type.ELECTRONIC), BarcodeFormat.PDF_417, 40, 15);
-        BufferedImage barcode = MatrixToImageWriter.toBufferedImage(bitMatrix);
+        Image itextImage = BarcodeImageCache.getInstance().get(getBarcodeText(Type.ELECTRONIC), BarcodeFormat.PDF_417, 40, 15, options.getBarcodeStyle(), pdfWriter);
+
+        layoutElectronicBoardingPass(document, pdfWriter, assets, table, itextImage);
 
-        ByteArrayOutputStream barcodeBaos = new ByteArrayOutputStream();
-        ImageIO.write(barcode, "jpg", barcodeBaos);
-        Image itextImage = Image.getInstance(barcodeBaos.toByteArray());
+        document.close();
+    }
 
+    private String[][] electronicDetails() {
         final String name = "NAME: " + passenger.fullName();
         final String flightNumber = "FLT: " + flight.getCompleteNumber();
         final String arrTime = "ARR: " + flight.getArrivalTime();
         final String depTime = "DEP: " + flight.getDepartureTime();
         final String passengerSeat = "SEAT: " + seat;
         final String depDate = "DATE: " + flight.getDepartureDate();
-        addRow(table, name, "CLASS: " + passenger.getTravelClass(), name);
-        addRow(table, flightNumber, "PNR: " + pnr, flightNumber);
-        addRow(table, flight.getOriginCityWithAirportCode(), flight.getDestinationCityWithAirportCode(), flight.getOriginDestinationAirportCodes());
-        addRow(table, depTime, arrTime, depTime + " " +  arrTime);
-        addRow(table, "SEQ: " + seqNo, passengerSeat, depDate);
-        addRow(table, depDate, "", passengerSeat);
+        return new String[][] {
+                {name, "CLASS: " + passenger.getTravelClass(), name},
+                {flightNumber, "PNR: " + pnr, flightNumber},
+                {flight.getOriginCityWithAirportCode(), flight.getDestinationCityWithAirportCode(), flight.getOriginDestinationAirportCodes()},
+                {depTime, arrTime, depTime + " " +  arrTime},
+                {"SEQ: " + seqNo, passengerSeat, depDate},
+                {depDate, "", passengerSeat}
+        };
+    }
 
+    private void layoutElectronicBoardingPass(Document document, PdfWriter pdfWriter, BoardingPassAssets assets, PdfPTable table, Image itextImage) throws DocumentException {
         // Add Agent Copy of Boarding Pass
-        final Phrase agentCopy = new Phrase("Agent Copy");
+        final Phrase agentCopy = new Phrase(assets.header("electronic.agent.copy"));
         document.add(agentCopy);
 
         Paragraph blankLine = new Paragraph("  ");
@@ -148,25 +239,21 @@ public class BoardingPass {
         document.add(table);
 
         PdfContentByte canvas = pdfWriter.getDirectContentUnder();
-        canvas.setFontAndSize(BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false), 18);
+        canvas.setFontAndSize(assets.helvetica(), 18);
 
         // Agent Copy Passenger Stub - Top Header
         canvas.beginText();
         canvas.moveText(60, 765);
         //cb.SetFontAndSize(bf, 12);
-        canvas.showText("DD Airways Web Check-In");
+        canvas.showText(assets.header("electronic.passenger.stub.header"));
         canvas.endText();
 
         // Agent Copy Airline Stub - Top Header
         canvas.beginText();
         canvas.moveText(420, 765);
-        canvas.showText("Web Check-In");
+        canvas.showText(assets.header("electronic.airline.stub.header"));
         canvas.endText();
 
-        // Add Agent Copy Barcode Vertically towards Right
-        // separating airline stub and passenger stub
-        rotate(canvas, itextImage, 275, 650, (float) Math.PI/2, 0.75f, 0.75f);
-
         // Add rectangle with border to visually group agent copy
         Rectangle rect = new Rectangle(10, 630, 580, 790);
         rect.setBorder(Rectangle.BOX);
@@ -174,7 +261,7 @@ public class BoardingPass {
         canvas.rectangle(rect);
 
         // Add dotted line - Marking Start of Customer Copy and End of Agent Copy
-        Paragraph separator = new Paragraph("cut on the dotted line below.");
+        Paragraph separator = new Paragraph(assets.header("electronic.cut.line"));
         separator.setAlignment(Element.ALIGN_CENTER);
         DottedLineSeparator dottedline = new DottedLineSeparator();
         dottedline.setOffset(-2);
@@ -183,17 +270,9 @@ public class BoardingPass {
         document.add(separator);
 
         document.add(blankLine);
-        document.add(new Phrase("Customer Copy"));
+        document.add(new Phrase(assets.header("electronic.customer.copy")));
 
-        InputStream in = getClass().getClassLoader().getResourceAsStream("electronic-boarding-pass-instructions.txt");
-        final DataInputStream dis = new DataInputStream(in);
-        int readByte;
-        StringBuilder instructions = new StringBuilder();
-        while((readByte = dis.read()) != -1) {
-            instructions.append((char)readByte);
-        }
-
-        document.add(new Paragraph(instructions.toString()));
+        document.add(assets.instructions());
 
         // Add Customer Copy of Boarding Pass
         document.add(blankLine);
@@ -201,25 +280,22 @@ public class BoardingPass {
         document.add(blankLine);
 
         // Customer Copy Passenger Stub - Top Header
-        canvas.setFontAndSize(BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false), 18);
+        canvas.setFontAndSize(assets.helvetica(), 18);
         canvas.beginText();
         canvas.moveText(60, 215);
-        canvas.showText("DD Airways Web Check-In");
+        canvas.showText(assets.header("electronic.passenger.stub.header"));
         canvas.endText();
 
         // Customer Copy Airline Stub - Top Header
         canvas.beginText();
         canvas.moveText(420, 215);
-        canvas.showText("Web Check-In");
+        canvas.showText(assets.header("electronic.airline.stub.header"));
         canvas.endText();
 
         // Customer Copy Boarding Pass Details
         document.add(table);
 
-        //contentByte.addImage(itextImage, itextImage.getWidth(), 0, 0, itextImage.getHeight(), itextImage.getAbsoluteX(), itextImage.getAbsoluteY());
-        // Add vertical barcode to right side separating
-        // airline stub and passenger stub for Customer Copy
-        rotate(canvas, itextImage, 275, 100, (float) Math.PI/2, 0.75f, 0.75f);
+        placeElectronicBarcodes(canvas, itextImage);
 
         rect = new Rectangle(10, 240, 580, 75);
         rect.setBorder(Rectangle.BOX);
@@ -229,20 +305,34 @@ public class BoardingPass {
         // Footer
         canvas.beginText();
         canvas.moveText(25, 40);
-        canvas.showText("DD Airways Electronic Boarding Pass - Wish you a Pleasant Flight");
+        canvas.showText(assets.header("electronic.footer"));
         canvas.endText();
+    }
 
-        document.close();
+    private void placeElectronicBarcodes(PdfContentByte canvas, Image itextImage) throws DocumentException {
+        // Add Agent Copy Barcode Vertically towards Right
+        // separating airline stub and passenger stub
+        rotate(canvas, itextImage, 275, 650, (float) Math.PI/2, 0.75f, 0.75f);
 
-        return os.toByteArray();
+        //contentByte.addImage(itextImage, itextImage.getWidth(), 0, 0, itextImage.getHeight(), itextImage.getAbsoluteX(), itextImage.getAbsoluteY());
+        // Add vertical barcode to right side separating
+        // airline stub and passenger stub for Customer Copy
+        rotate(canvas, itextImage, 275, 100, (float) Math.PI/2, 0.75f, 0.75f);
     }
 
     private String getBarcodeText(Type type) {
-        if (type == Type.MOBILE) {
+        final RenderEvent event = RenderEvent.start(RenderEvent.Stage.PAYLOAD);
+        final String text = barcodeText(type);
+        event.finish(text.length());
+        return text;
+    }
+
+    private String barcodeText(Type type) {
+        if (type == Type.MOBILE || type == Type.MOBILE_WALLET) {
             return flight.getBarcodeData() + seat + seqNo + passenger.fullName();
         }
 
-        if (type == Type.KIOSK) {
+        if (type == Type.KIOSK || type == Type.KIOSK_ZPL) {
             return flight.getBarcodeData() + gate + seat + seqNo + passenger.fullName();
         }
 
@@ -252,17 +342,134 @@ public class BoardingPass {
         return "";
     }
 
-    private byte [] createPdfKioskBoardingPass() throws IOException, DocumentException, WriterException {
+    byte [] createPdfKioskBoardingPass() throws IOException, DocumentException, WriterException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writePdfKioskBoardingPass(os, RenderOptions.DEFAULT);
+        return os.toByteArray();
+    }
+
+    private void writePdfKioskBoardingPass(OutputStream os, RenderOptions options) throws IOException, DocumentException, WriterException {
+        Document document = new Document(new Rectangle(595, 220));
+        final PdfWriter pdfWriter = pdfWriter(document, os, options);
+
+        document.open();
+        writeKioskPage(document, pdfWriter, options, false);
+        document.close();
+    }
+
+    static byte [] createPdfKioskGroupBoardingPass(List<BoardingPass> group) throws IOException, DocumentException, WriterException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writePdfKioskGroupBoardingPass(group, os, RenderOptions.DEFAULT);
+        return os.toByteArray();
+    }
+
+    // The kiosk passes of a group booking (a PNR, or a whole flight) as the pages
+    // of one PDF, printed as one job. Pages are stamped on the kiosk PassTemplate:
+    // the static layout is a single form drawn on every page and the font is set
+    // up once, so each page after the first only adds its details and barcode.
+    public static void writePdfKioskGroupBoardingPass(List<BoardingPass> group, OutputStream os, RenderOptions options) throws IOException, DocumentException, WriterException {
+        if (group.isEmpty()) {
+            throw new IllegalArgumentException("No boarding passes in the group");
+        }
+        final RenderEvent.Tags tags = RenderEvent.tag(Channel.KIOSK, Type.KIOSK, group.get(0).flight);
+        try {
+            final RenderEvent event = RenderEvent.start(RenderEvent.Stage.PDF);
+            final CountingOutputStream out = new CountingOutputStream(os);
+            Document document = new Document(new Rectangle(595, 220));
+            final PdfWriter pdfWriter = pdfWriter(document, out, options);
+
+            document.open();
+            for (int i = 0; i < group.size(); i++) {
+                if (i > 0) {
+                    document.newPage();
+                }
+                group.get(i).writeKioskPage(document, pdfWriter, options, true);
+            }
+            document.close();
+            event.finish(out.count());
+        } finally {
+            tags.close();
+        }
+    }
+
+    private void writeKioskPage(Document document, PdfWriter pdfWriter, RenderOptions options, boolean templated) throws IOException, DocumentException, WriterException {
+        //first 2 cols for passenger copy and last column for airline copy
+        PdfPTable table = detailsTable(kioskDetails(), DETAILS_WIDTHS, document.getPageSize());
+
+        // Generate Barcode PDF417
+        Image itextImage = BarcodeImageCache.getInstance().get(getBarcodeText(Type.KIOSK), BarcodeFormat.PDF_417, 400, 80, options.getBarcodeStyle(), pdfWriter);
+
+        if (templated) {
+            PassTemplate.of(Type.KIOSK, this::kioskTemplate).stamp(pdfWriter, table);
+            placeKioskBarcodes(pdfWriter.getDirectContent(), itextImage);
+        } else {
+            layoutKioskBoardingPass(document, pdfWriter, BoardingPassAssets.get(), table, itextImage);
+        }
+    }
+
+    private PassTemplate kioskTemplate() throws IOException, DocumentException {
         final ByteArrayOutputStream os = new ByteArrayOutputStream();
         Rectangle pageSize = new Rectangle(595, 220);
         Document document = new Document(pageSize);
         final PdfWriter pdfWriter = PdfWriter.getInstance(document, os);
-
         document.open();
+        final PassTemplate.TablePositions tables = new PassTemplate.TablePositions();
+        PdfPTable table = detailsTable(blank(kioskDetails()), DETAILS_WIDTHS, pageSize);
+        table.setTableEvent(tables);
+        final BoardingPassAssets assets = BoardingPassAssets.get();
+        layoutKioskBoardingPass(document, pdfWriter, assets, table, null);
+        document.close();
+        return new PassTemplate(assets, os.toByteArray(), tables.positions());
+    }
 
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(new float[] {225,225,5,190}, pageSize);
-        //first 2 cols for passenger copy and last column for airline copy
+    byte [] createZplKioskBoardingPass() throws IOException, WriterException, DocumentException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writeZplKioskBoardingPass(os);
+        return os.toByteArray();
+    }
+
+    // The kiosk layout for the printer: the same fields, headers and stubs, the
+    // barcodes encoded by the printer itself.
+    private void writeZplKioskBoardingPass(OutputStream os) throws IOException, WriterException, DocumentException {
+        final ZplLabel label = new ZplLabel(595, 220);
+        layoutKioskBoardingPass(label, getBarcodeText(Type.KIOSK_ZPL));
+        label.writeTo(os);
+    }
+
+    // Kiosk pass drawn for the screen, pixelWidth wide, without going through a PDF.
+    public BufferedImage kioskPreview(int pixelWidth, boolean draft) throws IOException, WriterException, DocumentException {
+        final KioskPreview preview = new KioskPreview(595, 220, pixelWidth, draft);
+        layoutKioskBoardingPass(preview, getBarcodeText(Type.KIOSK));
+        return preview.finish();
+    }
+
+    // The kiosk layout outside of iText, positions follow the PDF page.
+    private void layoutKioskBoardingPass(PassCanvas canvas, String barcodeText) throws IOException, WriterException, DocumentException {
+        final BoardingPassAssets assets = BoardingPassAssets.get();
+
+        // Passenger Copy and Airline Copy - Top Headers
+        canvas.text(60, 190, 24, assets.header("kiosk.passenger.copy.header"));
+        canvas.text(420, 190, 24, assets.header("kiosk.airline.copy.header"));
+
+        // first 2 cols for passenger copy and last column for airline copy,
+        // rows and columns where the details table puts them
+        final float[] columns = {16, 214, 417};
+        final String[][] rows = kioskDetails();
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < columns.length; column++) {
+                canvas.text(columns[column], 171 - 20 * row, 12, rows[row][column]);
+            }
+        }
+
+        // dashed line separating airline copy and passenger copy
+        canvas.dashedLine(410, 220, 3);
+
+        // barcode on left passenger copy and on right airline copy
+        canvas.pdf417(50, 60, 300, 60, barcodeText);
+        canvas.pdf417(420, 60, 120, 60, barcodeText);
+    }
+
+    private String[][] kioskDetails() {
         final String name = "NAME: " + passenger.fullName();
         final String airportGate = "GATE: " + gate;
         final String passengerSeat = "SEAT: " + seat;
@@ -270,18 +477,24 @@ public class BoardingPass {
         final String arrTime = "ARR: " + flight.getArrivalTime();
         final String depTime = "DEP: " + flight.getDepartureTime();
         final String depDate = "DATE: " + flight.getDepartureDate();
-        addRow(table, name, "CLASS: " + passenger.getTravelClass(), name);
-        addRow(table, flightNumber, "PNR: " + pnr, flightNumber);
-        addRow(table, flight.getOriginCityWithAirportCode(), flight.getDestinationCityWithAirportCode(), flight.getOriginDestinationAirportCodes());
-        addRow(table, depTime, arrTime, depTime + " " + arrTime);
-        addRow(table, "SEQ: " + seqNo, passengerSeat, depDate);
-        addRow(table, depDate, airportGate, passengerSeat + "   " + airportGate);
+        return new String[][] {
+                {name, "CLASS: " + passenger.getTravelClass(), name},
+                {flightNumber, "PNR: " + pnr, flightNumber},
+                {flight.getOriginCityWithAirportCode(), flight.getDestinationCityWithAirportCode(), flight.getOriginDestinationAirportCodes()},
+                {depTime, arrTime, depTime + " " + arrTime},
+                {"SEQ: " + seqNo, passengerSeat, depDate},
+                {depDate, airportGate, passengerSeat + "   " + airportGate}
+        };
+    }
+
+    // itextImage is null when laying out the static template
+    private void layoutKioskBoardingPass(Document document, PdfWriter pdfWriter, BoardingPassAssets assets, PdfPTable table, Image itextImage) throws DocumentException {
         document.add(table);
 
         // Add vertical dashed line to right side separating
         // airline copy and passenger copy
         PdfContentByte contentByte = pdfWriter.getDirectContent();
-        contentByte.setFontAndSize(BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false), 24);
+        contentByte.setFontAndSize(assets.helvetica(), 24);
         contentByte.setLineDash(3, 3, 0);
         // move to right side as less space is desired for airline stub
         // and more space for passenger stub.
@@ -289,91 +502,170 @@ public class BoardingPass {
         contentByte.lineTo(410, 0);
         contentByte.stroke();
 
-        // Generate Barcode PDF417
-        MultiFormatWriter writer = new MultiFormatWriter();
-        BitMatrix bitMatrix = writer.encode(getBarcodeText(Type.KIOSK), BarcodeFormat.PDF_417, 400, 80);
-        BufferedImage barcode = MatrixToImageWriter.toBufferedImage(bitMatrix);
-
-        ByteArrayOutputStream barcodeBaos = new ByteArrayOutputStream();
-        ImageIO.write(barcode, "jpg", barcodeBaos);
-        Image itextImage = Image.getInstance(barcodeBaos.toByteArray());
-
-        //contentByte.addImage(itextImage, itextImage.getWidth(), 0, 0, itextImage.getHeight(), itextImage.getAbsoluteX(), itextImage.getAbsoluteY());
-        // barcode on left passenger copy
-        contentByte.addImage(itextImage, 300, 0, 0, 60, 50, itextImage.getAbsoluteY());
-        //barcode on right airline copy
-        contentByte.addImage(itextImage, 120, 0, 0, 60, 420, itextImage.getAbsoluteY());
+        if (itextImage != null) {
+            placeKioskBarcodes(contentByte, itextImage);
+        }
 
         // Passenger Copy - Top Header
         contentByte.beginText();
         contentByte.moveText(60, 190);
-        contentByte.showText("DD Airways Kiosk Check-In");
+        contentByte.showText(assets.header("kiosk.passenger.copy.header"));
         contentByte.endText();
 
         // Airline Copy - Top Header
         contentByte.beginText();
         contentByte.moveText(420, 190);
-        contentByte.showText("Kiosk Check-In");
+        contentByte.showText(assets.header("kiosk.airline.copy.header"));
         contentByte.endText();
+    }
 
-        document.close();
-
-        return os.toByteArray();
+    private void placeKioskBarcodes(PdfContentByte contentByte, Image itextImage) throws DocumentException {
+        //contentByte.addImage(itextImage, itextImage.getWidth(), 0, 0, itextImage.getHeight(), itextImage.getAbsoluteX(), itextImage.getAbsoluteY());
+        // barcode on left passenger copy
+        contentByte.addImage(itextImage, 300, 0, 0, 60, 50, itextImage.getAbsoluteY());
+        //barcode on right airline copy
+        contentByte.addImage(itextImage, 120, 0, 0, 60, 420, itextImage.getAbsoluteY());
     }
 
-    private byte [] createPdfMobileBoardingPass() throws IOException, DocumentException, WriterException {
+    byte [] createPdfMobileBoardingPass() throws IOException, DocumentException, WriterException {
         ByteArrayOutputStream boardingPass = new ByteArrayOutputStream();
+        writePdfMobileBoardingPass(boardingPass, RenderOptions.DEFAULT);
+        return boardingPass.toByteArray();
+    }
+
+    private void writePdfMobileBoardingPass(OutputStream boardingPass, RenderOptions options) throws IOException, DocumentException, WriterException {
+        final BoardingPassAssets assets = BoardingPassAssets.get();
         Rectangle pageSize = new Rectangle(220, 340);
         Document document = new Document(pageSize);
-        final PdfWriter pdfWriter = PdfWriter.getInstance(document, boardingPass);
+        final PdfWriter pdfWriter = pdfWriter(document, boardingPass, options);
         document.open();
 
         //Generate Aztec Barcode
-        MultiFormatWriter writer = new MultiFormatWriter();
-        BitMatrix bitMatrix = writer.encode(getBarcodeText(Type.MOBILE), BarcodeFormat.AZTEC, 135, 135);
-        BufferedImage aztecBarcode = MatrixToImageWriter.toBufferedImage(bitMatrix);
-        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
-        ImageIO.write(aztecBarcode, "jpg", jpeg);
-        Image itextImage = Image.getInstance(jpeg.toByteArray());
-        document.add(itextImage);
+        Image itextImage = BarcodeImageCache.getInstance().get(getBarcodeText(Type.MOBILE), BarcodeFormat.AZTEC, 135, 135, options.getBarcodeStyle(), pdfWriter);
 
         //Boarding Pass Info as Table
-        PdfPTable table = new PdfPTable(2);
-        table.setWidthPercentage(new float[]{110, 110}, pageSize);
-        addRow(table, passenger.getFirstName(), passenger.getLastName());
-        addRow(table, flight.getCode(), flight.getNumber());
-        addRow(table, flight.originAirportCode(), flight.destinationAirportCode());
-        addRow(table, flight.getDepartureTime(), flight.getArrivalTime());
-        addRow(table, passenger.getTravelClass(), seat);
-        addRow(table, "DATE", flight.getDepartureDate());
-        addRow(table, "PNR", pnr);
+        PdfPTable table = detailsTable(mobileDetails(), MOBILE_DETAILS_WIDTHS, pageSize);
+
+        document.add(itextImage);
+        layoutMobileBoardingPass(document, pdfWriter, assets, table);
+
+        document.close();
+    }
+
+    private String[][] mobileDetails() {
+        return new String[][] {
+                {passenger.getFirstName(), passenger.getLastName()},
+                {flight.getCode(), flight.getNumber()},
+                {flight.originAirportCode(), flight.destinationAirportCode()},
+                {flight.getDepartureTime(), flight.getArrivalTime()},
+                {passenger.getTravelClass(), seat},
+                {"DATE", flight.getDepartureDate()},
+                {"PNR", pnr}
+        };
+    }
+
+    byte [] createMobileWalletBundle() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writeMobileWalletBundle(os);
+        return os.toByteArray();
+    }
+
+    // The fields of the mobile boarding pass and the raw barcode payload, for the
+    // phone to lay out and encode as an Aztec barcode itself.
+    private void writeMobileWalletBundle(OutputStream os) throws IOException {
+        final BoardingPassAssets assets = BoardingPassAssets.get();
+        final String barcodeText = getBarcodeText(Type.MOBILE_WALLET);
+
+        final Map<String, Object> pass = new LinkedHashMap<>();
+        pass.put("formatVersion", 1);
+        pass.put("serialNumber", CalendarEngine.getInstance().uidFor(flight, pnr, seqNo).getValue());
+        pass.put("organizationName", assets.header("mobile.header"));
+        pass.put("description", assets.header("mobile.footer"));
+
+        final Map<String, Object> passengerFields = new LinkedHashMap<>();
+        passengerFields.put("firstName", passenger.getFirstName());
+        passengerFields.put("lastName", passenger.getLastName());
+        passengerFields.put("travelClass", passenger.getTravelClass());
+        pass.put("passenger", passengerFields);
+
+        final Map<String, Object> flightFields = new LinkedHashMap<>();
+        flightFields.put("code", flight.getCode());
+        flightFields.put("number", flight.getNumber());
+        flightFields.put("origin", flight.originAirportCode());
+        flightFields.put("destination", flight.destinationAirportCode());
+        flightFields.put("departureDate", flight.getDepartureDate());
+        flightFields.put("departureTime", flight.getDepartureTime());
+        flightFields.put("arrivalTime", flight.getArrivalTime());
+        pass.put("flight", flightFields);
+
+        pass.put("pnr", pnr);
+        pass.put("seat", seat);
+        pass.put("seqNo", seqNo);
+        pass.put("gate", gate);
+
+        final Map<String, Object> barcode = new LinkedHashMap<>();
+        barcode.put("format", BarcodeFormat.AZTEC.name());
+        barcode.put("message", barcodeText);
+        barcode.put("messageEncoding", "UTF-8");
+        pass.put("barcode", barcode);
+
+        new WalletBundle()
+                .add("pass.json", WalletBundle.json(pass))
+                .add("barcode.txt", barcodeText)
+                .writeTo(os);
+    }
+
+    private void layoutMobileBoardingPass(Document document, PdfWriter pdfWriter, BoardingPassAssets assets, PdfPTable table) throws DocumentException {
         document.add(table);
 
         PdfContentByte contentByte = pdfWriter.getDirectContent();
-        contentByte.setFontAndSize(BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false), 16);
+        contentByte.setFontAndSize(assets.helvetica(), 16);
 
         //Boarding Pass Footer
         contentByte.beginText();
         contentByte.moveText(35, 10);
-        contentByte.showText("Mobile Boarding Pass");
+        contentByte.showText(assets.header("mobile.footer"));
         contentByte.endText();
 
         //Boarding Pass Header
         contentByte.beginText();
         contentByte.moveText(70, 315);
-        contentByte.showText("DD Airways");
+        contentByte.showText(assets.header("mobile.header"));
         contentByte.endText();
+    }
 
-        document.close();
+    private PdfPTable detailsTable(String[][] rows, float[] widths, Rectangle pageSize) throws DocumentException {
+        PdfPTable table = new PdfPTable(widths.length);
+        table.setWidthPercentage(widths, pageSize);
+        for (String[] row : rows) {
+            if (widths.length == 4) {
+                addRow(table, row[0], row[1], row[2]);
+            } else {
+                addRow(table, row[0], row[1]);
+            }
+        }
+        return table;
+    }
 
-        return boardingPass.toByteArray();
+    private static String[][] blank(String[][] rows) {
+        final String[][] blank = new String[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            blank[i] = new String[rows[i].length];
+            Arrays.fill(blank[i], "");
+        }
+        return blank;
+    }
+
+    byte [] createCalendarEventWithBoardingPass(byte [] attachBoardingPass) throws IOException, URISyntaxException, ValidationException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCalendarEventWithBoardingPass(attachBoardingPass, out, RenderOptions.DEFAULT);
+        return out.toByteArray();
     }
 
-    private byte [] createCalendarEventWithBoardingPass(byte [] attachBoardingPass) throws IOException, URISyntaxException, ValidationException {
-        // Create a TimeZone
-        TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
-        net.fortuna.ical4j.model.TimeZone timezone = registry.getTimeZone("Asia/Calcutta");
-        VTimeZone tz = timezone.getVTimeZone();
+    private void writeCalendarEventWithBoardingPass(byte [] attachBoardingPass, OutputStream out, RenderOptions options) throws IOException, URISyntaxException, ValidationException {
+        // Time zone of the origin airport
+        final CalendarEngine calendarEngine = CalendarEngine.getInstance();
+        VTimeZone tz = calendarEngine.timeZoneOf(flight.getOrigin());
 
         // Create the event
         String eventName = String.format("Flight to %s (%s)", flight.getDestinationCity(), flight.getCompleteNumber());
@@ -382,13 +674,17 @@ public class BoardingPass {
         DateTime start = new DateTime(departure.toDate());
         DateTime end = new DateTime(departure.plusHours(2).toDate());
         VEvent flightTravel = new VEvent(start, end, eventName);
+        if (options.isDeterministic()) {
+            // stamped with the departure instead of now
+            flightTravel.getProperties().remove(flightTravel.getProperty(Property.DTSTAMP));
+            flightTravel.getProperties().add(new DtStamp(new DateTime(departure.toDate())));
+        }
 
         // add timezone info..
         flightTravel.getProperties().add(tz.getTimeZoneId());
 
         // generate unique identifier..
-        UidGenerator ug = new UidGenerator("uidGen");
-        Uid uid = ug.generateUid();
+        Uid uid = calendarEngine.uidFor(flight, pnr, seqNo);
         flightTravel.getProperties().add(uid);
 
         // add attendees for Event
@@ -420,91 +716,349 @@ public class BoardingPass {
             params.add(Value.BINARY);
             params.add(Encoding.BASE64);
             params.add(new FmtType("Mobile Boarding Pass.pdf"));
-            Attach attach = new Attach(params, attachBoardingPass);
-            flightTravel.getProperties().add(attach);
+            flightTravel.getProperties().add(new Attach(params, attachBoardingPass));
         }
 
         // Add the event and print
         icsCalendar.getComponents().add(flightTravel);
+        calendarEngine.write(icsCalendar, out);
+    }
 
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-        CalendarOutputter outputter = new CalendarOutputter();
-        outputter.setValidating(false);
-        outputter.output(icsCalendar, out);
-        return out.toByteArray();
+    // returns the size of the artifact
+    private long render(Type type, Map<Type, byte[]> dependencies, OutputStream destination, RenderOptions options) throws URISyntaxException, WriterException, ValidationException, DocumentException, IOException {
+        if (!AllocationAccounting.getInstance().hasBudget(type)) {
+            return measure(type, dependencies, destination, options);
+        }
+        // held back until the render is within its budget, a render over it writes nothing
+        final RenderContext context = RenderContext.acquire();
+        try {
+            final ByteArrayOutputStream buffer = context.buffer(type);
+            final long size = measure(type, dependencies, buffer, options);
+            buffer.writeTo(destination);
+            return size;
+        } finally {
+            context.release();
+        }
     }
 
-    private byte[] render(Type type) throws URISyntaxException, WriterException, ValidationException, DocumentException, IOException {
+    private long measure(Type type, Map<Type, byte[]> dependencies, OutputStream destination, RenderOptions options) throws URISyntaxException, WriterException, ValidationException, DocumentException, IOException {
+        final RenderEvent event = RenderEvent.start(stageOf(type));
+        final CountingOutputStream out = new CountingOutputStream(destination);
+        final long allocated = AllocationAccounting.getInstance().start();
+        boolean completed = false;
         try {
             if (type == Type.MOBILE) {
-                return createPdfMobileBoardingPass();
+                writePdfMobileBoardingPass(out, options);
             }
 
             if (type == Type.KIOSK) {
-                return createPdfKioskBoardingPass();
+                writePdfKioskBoardingPass(out, options);
             }
 
             if (type == Type.ELECTRONIC) {
-                return createPdfElectronicBoardingPass();
+                writePdfElectronicBoardingPass(out, options);
+            }
+
+            if (type == Type.KIOSK_ZPL) {
+                writeZplKioskBoardingPass(out);
+            }
+
+            if (type == Type.MOBILE_WALLET) {
+                writeMobileWalletBundle(out);
             }
 
             if (type == Type.CALENDAR_EVENT) {
-                byte[] attachMobileBoardingPass = createPdfMobileBoardingPass();
-                return createCalendarEventWithBoardingPass(attachMobileBoardingPass);
+                byte[] attachMobileBoardingPass = dependencies.get(Type.MOBILE);
+                writeCalendarEventWithBoardingPass(attachMobileBoardingPass, out, options);
+            }
+            completed = true;
+        } finally {
+            AllocationAccounting.getInstance().finish(type, allocated, completed);
+        }
+        event.finish(out.count());
+        return out.count();
+    }
+
+    private static RenderEvent.Stage stageOf(Type type) {
+        switch (type) {
+            case CALENDAR_EVENT:
+                return RenderEvent.Stage.ICS;
+            case KIOSK_ZPL:
+                return RenderEvent.Stage.ZPL;
+            case MOBILE_WALLET:
+                return RenderEvent.Stage.WALLET;
+            default:
+                return RenderEvent.Stage.PDF;
+        }
+    }
+
+    public List<byte[]> render(Channel channel) throws Exception {
+        return render(channel, RenderOptions.DEFAULT);
+    }
+
+    public List<byte[]> render(Channel channel, RenderOptions options) throws Exception {
+        // rendered into reused buffers, the copies returned are the only output allocated;
+        // the render returns, failed or not, only once nothing writes to them any more,
+        // so the buffers are never handed to another render while still in use
+        final RenderContext context = RenderContext.acquire();
+        try {
+            final Map<Type, ByteArrayOutputStream> buffers = new EnumMap<>(Type.class);
+            for (Type type : channel.artifacts()) {
+                buffers.put(type, context.buffer(type));
             }
+            render(channel, ArtifactSink.toStreams(buffers), options);
+            final List<byte[]> rendered = new ArrayList<>(buffers.size());
+            for (Type type : channel.artifacts()) {
+                rendered.add(buffers.get(type).toByteArray());
+            }
+            return rendered;
+        } finally {
+            context.release();
+        }
+    }
+
+    // Size in bytes of every artifact of this pass rendered with the options,
+    // to compare output profiles such as RenderOptions.compact.
+    public Map<Type, Integer> sizes(RenderOptions options) throws Exception {
+        final Map<Type, Integer> sizes = new EnumMap<>(Type.class);
+        for (Channel channel : new Channel[]{Channel.MOBILE, Channel.DESKTOP, Channel.KIOSK, Channel.THERMAL_PRINTER, Channel.MOBILE_WALLET}) {
+            final List<byte[]> rendered = render(channel, options);
+            for (int i = 0; i < rendered.size(); i++) {
+                sizes.put(channel.artifacts().get(i), rendered.get(i).length);
+            }
+        }
+        return sizes;
+    }
+
+    public void render(Channel channel, ArtifactSink sink) throws Exception {
+        render(channel, sink, RenderOptions.DEFAULT);
+    }
+
+    public void render(Channel channel, ArtifactSink sink, RenderOptions options) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            new ChannelRender(channel, sink, options).run();
         } catch (Exception e) {
+            RenderMetrics.getInstance().renderFailed(e);
             throw e;
         }
-        return new byte[]{};
+        RenderMetrics.getInstance().rendered(channel, System.nanoTime() - start);
     }
 
+    // Renders the artifacts of one channel. Each artifact is produced once and shared
+    // by everything depending on it (DESKTOP and MOBILE calendar events attach the
+    // mobile pass), artifacts independent of each other are produced concurrently
+    // when the sink allows it.
+    private class ChannelRender {
+        private final Channel channel;
+        private final ArtifactSink sink;
+        private final RenderOptions options;
+        private final Executor executor;
+        private final Map<Type, CompletableFuture<byte[]>> produced = new EnumMap<>(Type.class);
+
+        ChannelRender(Channel channel, ArtifactSink sink, RenderOptions options) {
+            this.channel = channel;
+            this.sink = sink;
+            this.options = options;
+            this.executor = sink.acceptsConcurrentWrites() ? ForkJoinPool.commonPool() : Runnable::run;
+        }
 
-    public List<byte[]> render(Channel channel) throws Exception {
-        if(channel == Channel.AIRPORT_COUNTER || channel == Channel.KIOSK) {
-            return Arrays.asList(render(Type.KIOSK));
+        // Returns once every artifact, dependencies included, has settled: the sink
+        // and its streams go back to the caller with nothing still writing to them.
+        // The first failure is thrown, other failures are suppressed into it.
+        void run() throws Exception {
+            for (Type type : channel.artifacts()) {
+                produce(type);
+            }
+            Exception failure = null;
+            for (CompletableFuture<byte[]> artifact : produced.values()) {
+                try {
+                    await(artifact);
+                } catch (Exception e) {
+                    // an artifact fails with the failure of what it depends on
+                    if (failure == null) {
+                        failure = e;
+                    } else if (failure != e) {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
         }
-        if(channel == Channel.DESKTOP) {
-            return Arrays.asList(render(Type.ELECTRONIC), render(Type.CALENDAR_EVENT));
-//            return Arrays.asList(render(Type.MOBILE), render(Type.CALENDAR_EVENT));
+
+        private CompletableFuture<byte[]> produce(Type type) {
+            CompletableFuture<byte[]> artifact = produced.get(type);
+            if (artifact != null) {
+                return artifact;
+            }
+            if (type.dependencies().isEmpty()) {
+                artifact = CompletableFuture.supplyAsync(() -> renderOrFail(type, Collections.emptyMap()), executor);
+            } else {
+                final Map<Type, CompletableFuture<byte[]>> inputs = new EnumMap<>(Type.class);
+                for (Type dependency : type.dependencies()) {
+                    inputs.put(dependency, produce(dependency));
+                }
+                artifact = CompletableFuture.allOf(inputs.values().toArray(new CompletableFuture<?>[0]))
+                        .thenApply(done -> {
+                            final Map<Type, byte[]> dependencies = new EnumMap<>(Type.class);
+                            inputs.forEach((dependency, input) -> dependencies.put(dependency, input.join()));
+                            return renderOrFail(type, dependencies);
+                        });
+            }
+            produced.put(type, artifact);
+            return artifact;
         }
-        if(channel == Channel.MOBILE) {
-            return Arrays.asList(render(Type.MOBILE), render(Type.CALENDAR_EVENT));
+
+        // Artifacts only delivered stream straight into the sink; artifacts other
+        // artifacts depend on are kept in memory (and copied to the sink if delivered too).
+        private byte[] renderOrFail(Type type, Map<Type, byte[]> dependencies) {
+            final RenderEvent.Tags tags = RenderEvent.tag(channel, type, flight);
+            try {
+                // a render run on the caller's thread stops between artifacts once cancelled
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Render of the " + type + " artifact interrupted");
+                }
+                final long start = System.nanoTime();
+                if (!isDependedUpon(type)) {
+                    final long size;
+                    try (OutputStream out = sink.open(type)) {
+                        size = render(type, dependencies, out, options);
+                    }
+                    RenderMetrics.getInstance().produced(type, System.nanoTime() - start, size);
+                    return null;
+                }
+                final RenderContext context = RenderContext.acquire();
+                try {
+                    final ByteArrayOutputStream buffer = context.buffer(type);
+                    render(type, dependencies, buffer, options);
+                    RenderMetrics.getInstance().produced(type, System.nanoTime() - start, buffer.size());
+                    if (channel.artifacts().contains(type)) {
+                        try (OutputStream out = sink.open(type)) {
+                            buffer.writeTo(out);
+                        }
+                    }
+                    return buffer.toByteArray();
+                } finally {
+                    context.release();
+                }
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                tags.close();
+            }
+        }
+
+        private boolean isDependedUpon(Type type) {
+            for (Type artifact : channel.artifacts()) {
+                if (artifact.dependencies().contains(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> artifact) throws Exception {
+        try {
+            return artifact.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public static List<RenderResult> render(List<BoardingPass> manifest, Channel channel) {
+        return render(manifest, channel, ForkJoinPool.commonPool());
+    }
+
+    public static List<RenderResult> render(List<BoardingPass> manifest, Channel channel, Executor executor) {
+        final List<CompletableFuture<RenderResult>> pending = new ArrayList<>(manifest.size());
+        for (BoardingPass boardingPass : manifest) {
+            pending.add(CompletableFuture.supplyAsync(() -> boardingPass.renderSafely(channel), executor));
+        }
+        // join in manifest order, each future already captures its own failure
+        final List<RenderResult> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<RenderResult> result : pending) {
+            results.add(result.join());
+        }
+        return results;
+    }
+
+    private RenderResult renderSafely(Channel channel) {
+        try {
+            return RenderResult.success(this, render(channel));
+        } catch (Exception e) {
+            return RenderResult.failure(this, e);
         }
-        return Collections.emptyList();
     }
 
     public void writeFileFor(Channel channel) throws Exception {
-        FileOutputStream fos = null;
-        final List<byte[]> bytes = render(channel);
+        final long start = System.nanoTime();
+        try {
+            writeFiles(channel);
+        } catch (Exception e) {
+            RenderMetrics.getInstance().fileWriteFailed(e);
+            throw e;
+        }
+        RenderMetrics.getInstance().fileWritten(channel, System.nanoTime() - start);
+    }
+
+    private void writeFiles(Channel channel) throws Exception {
         if(channel == Channel.AIRPORT_COUNTER || channel == Channel.KIOSK) {
-            fos = new FileOutputStream("kiosk-boarding-pass-" + pnr + "-" + passenger.getLastName() + ".pdf");
-            fos.write(bytes.get(0));
+            final Map<Type, Path> files = new EnumMap<>(Type.class);
+            files.put(Type.KIOSK, Paths.get(fileName(Type.KIOSK)));
+            render(channel, ArtifactSink.toPaths(files));
+        }
+        if(channel == Channel.THERMAL_PRINTER) {
+            final Map<Type, Path> files = new EnumMap<>(Type.class);
+            files.put(Type.KIOSK_ZPL, Paths.get(fileName(Type.KIOSK_ZPL)));
+            render(channel, ArtifactSink.toPaths(files));
+        }
+        if(channel == Channel.MOBILE_WALLET) {
+            final Map<Type, Path> files = new EnumMap<>(Type.class);
+            files.put(Type.MOBILE_WALLET, Paths.get(fileName(Type.MOBILE_WALLET)));
+            render(channel, ArtifactSink.toPaths(files));
         }
         if(channel == Channel.DESKTOP) {
-            fos = new FileOutputStream("desktop-boarding-passes-" + pnr + "-" + passenger.getLastName() + ".zip");
-            ZipOutputStream zip = new ZipOutputStream(fos);
-            final java.util.List<String> fileNames = Arrays.asList(
-                    "electronic-boarding-pass-" + pnr + "-" + passenger.getLastName() + ".pdf",
-                    "calendar-boarding-event-" + pnr + "-" + passenger.getLastName()  + ".ics");
-            for(int i = 0; i < fileNames.size(); i++) {
-                final byte[] nextBytes = bytes.get(i);
-                ZipEntry zipEntry = new ZipEntry(fileNames.get(i));
-                zip.putNextEntry(zipEntry);
-                zip.write(nextBytes);
-                zip.closeEntry();
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream("desktop-boarding-passes-" + fileSuffix() + ".zip")))) {
+                final Map<Type, String> entryNames = new EnumMap<>(Type.class);
+                entryNames.put(Type.ELECTRONIC, fileName(Type.ELECTRONIC));
+                entryNames.put(Type.CALENDAR_EVENT, fileName(Type.CALENDAR_EVENT));
+                render(channel, ArtifactSink.toZip(zip, entryNames));
+                zip.finish();
             }
-            zip.finish();
-            zip.close();
         }
         if(channel == Channel.MOBILE) {
-            fos = new FileOutputStream("mobile-boarding-pass-" + pnr + "-" + passenger.getLastName() + ".pdf");
-            fos.write(bytes.get(0));
-            fos.flush();
-            fos.close();
-            fos = new FileOutputStream("calendar-boarding-event-" + pnr + "-" + passenger.getLastName() + ".ics");
-            fos.write(bytes.get(1));
+            final Map<Type, Path> files = new EnumMap<>(Type.class);
+            files.put(Type.MOBILE, Paths.get(fileName(Type.MOBILE)));
+            files.put(Type.CALENDAR_EVENT, Paths.get(fileName(Type.CALENDAR_EVENT)));
+            render(channel, ArtifactSink.toPaths(files));
         }
-        fos.flush();
-        fos.close();
     }
-}
\ No newline at end of file
+
+    // name of the file or zip entry an artifact is delivered as
+    String fileName(Type type) {
+        switch (type) {
+            case MOBILE:
+                return "mobile-boarding-pass-" + fileSuffix() + ".pdf";
+            case ELECTRONIC:
+                return "electronic-boarding-pass-" + fileSuffix() + ".pdf";
+            case KIOSK:
+                return "kiosk-boarding-pass-" + fileSuffix() + ".pdf";
+            case KIOSK_ZPL:
+                return "kiosk-boarding-pass-" + fileSuffix() + ".zpl";
+            case MOBILE_WALLET:
+                return "mobile-wallet-pass-" + fileSuffix() + ".zip";
+            default:
+                return "calendar-boarding-event-" + fileSuffix() + ".ics";
+        }
+    }
+
+    private String fileSuffix() {
+        return pnr + "-" + passenger.getLastName();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.BaseFont;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Fonts, instructions and header text shared by every render, loaded and
+// parsed once. A reload swaps in a complete new set, renders already running
+// keep the set they started with.
+public final class BoardingPassAssets {
+    static final String INSTRUCTIONS = "electronic-boarding-pass-instructions.txt";
+    static final String HEADERS = "boarding-pass-headers.properties";
+
+    private static volatile BoardingPassAssets current = load();
+    private static ScheduledExecutorService watcher;
+
+    private final BaseFont helvetica;
+    private final String instructionsText;
+    private final Paragraph instructions;
+    private final Properties headers;
+    private final long lastModified;
+
+    private BoardingPassAssets(BaseFont helvetica, String instructionsText, Properties headers, long lastModified) {
+        this.helvetica = helvetica;
+        this.instructionsText = instructionsText;
+        this.instructions = new Paragraph(instructionsText);
+        this.headers = headers;
+        this.lastModified = lastModified;
+    }
+
+    public static BoardingPassAssets get() {
+        return current;
+    }
+
+    public static synchronized void reload() {
+        current = load();
+    }
+
+    // Only resources on the file system (not packed in a jar) can change.
+    public static synchronized boolean reloadIfModified() {
+        if (lastModifiedOfResources() <= current.lastModified) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    public static synchronized void enableHotReload(long period, TimeUnit unit) {
+        disableHotReload();
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "boarding-pass-assets-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(BoardingPassAssets::reloadIfModified, period, period, unit);
+    }
+
+    public static synchronized void disableHotReload() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    // the texts the assets put on a pass, for caches of rendered passes
+    String fingerprint() {
+        return instructionsText + "\n" + new java.util.TreeMap<>(headers);
+    }
+
+    public BaseFont helvetica() {
+        return helvetica;
+    }
+
+    public String instructionsText() {
+        return instructionsText;
+    }
+
+    public Paragraph instructions() {
+        return instructions;
+    }
+
+    public String header(String key) {
+        final String header = headers.getProperty(key);
+        if (header == null) {
+            throw new IllegalArgumentException("No header " + key + " in " + HEADERS);
+        }
+        return header;
+    }
+
+    private static BoardingPassAssets load() {
+        try {
+            final long lastModified = lastModifiedOfResources();
+            final BaseFont helvetica = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false);
+            final Properties headers = new Properties();
+            try (Reader reader = new InputStreamReader(open(HEADERS), StandardCharsets.UTF_8)) {
+                headers.load(reader);
+            }
+            final String instructions;
+            try (InputStream in = open(INSTRUCTIONS)) {
+                instructions = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            return new BoardingPassAssets(helvetica, instructions, headers, lastModified);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DocumentException e) {
+            throw new IllegalStateException("Cannot load boarding pass fonts", e);
+        }
+    }
+
+    private static InputStream open(String resource) throws IOException {
+        final InputStream in = BoardingPassAssets.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing resource " + resource);
+        }
+        return in;
+    }
+
+    private static long lastModifiedOfResources() {
+        return Math.max(lastModifiedOf(INSTRUCTIONS), lastModifiedOf(HEADERS));
+    }
+
+    private static long lastModifiedOf(String resource) {
+        final URL url = BoardingPassAssets.class.getClassLoader().getResource(resource);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return 0;
+        }
+        try {
+            return new File(url.toURI()).lastModified();
+        } catch (URISyntaxException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ddairways.model;
+
+import net.fortuna.ical4j.data.CalendarOutputter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.ValidationException;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.property.Uid;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Shared ical4j setup: one time zone registry, time zones resolved once per
+// airport and an outputter reused for every calendar event.
+public class CalendarEngine {
+    private static final CalendarEngine INSTANCE = new CalendarEngine();
+
+    private final TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+    private final ConcurrentMap<String, VTimeZone> timeZones = new ConcurrentHashMap<>();
+    private final CalendarOutputter outputter = new CalendarOutputter(false);
+
+    public static CalendarEngine getInstance() {
+        return INSTANCE;
+    }
+
+    public void preload(Collection<Airport> airports) {
+        for (Airport airport : airports) {
+            timeZoneOf(airport);
+        }
+    }
+
+    public VTimeZone timeZoneOf(Airport airport) {
+        return timeZones.computeIfAbsent(airport.getTimeZoneId(), this::load);
+    }
+
+    private VTimeZone load(String timeZoneId) {
+        final TimeZone timeZone;
+        // the registry lazily parses zoneinfo and is not meant for concurrent use
+        synchronized (registry) {
+            timeZone = registry.getTimeZone(timeZoneId);
+        }
+        if (timeZone == null) {
+            throw new IllegalArgumentException("Unknown time zone " + timeZoneId);
+        }
+        return timeZone.getVTimeZone();
+    }
+
+    // Unique per passenger and flight, derived from the booking itself so
+    // there is no host lookup or shared counter as with UidGenerator.
+    public Uid uidFor(Flight flight, String pnr, String seqNo) {
+        return new Uid(new StringBuilder()
+                .append(pnr).append('-')
+                .append(seqNo).append('-')
+                .append(flight.getCompleteNumber()).append('-')
+                .append(flight.getDepartureDate())
+                .append("@ddairways.com")
+                .toString());
+    }
+
+    public void write(Calendar calendar, OutputStream out) throws IOException, ValidationException {
+        final RenderContext context = RenderContext.acquire();
+        try {
+            // the writer leaves the stream, which belongs to the caller, open
+            outputter.output(calendar, context.writer().bind(out));
+        } finally {
+            context.release();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ddairways.model;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Replaces the random /ID iText writes into the PDF trailer with the MD5 of the
+// document's own bytes, so identical documents come out byte for byte identical.
+// The trailer is written last, so everything except a small tail streams through;
+// close() patches the tail and writes it, leaving the destination open.
+class DocumentIdOutputStream extends FilterOutputStream {
+    private static final int TAIL = 4096;
+    private static final byte[] ID = {'/', 'I', 'D', ' ', '['};
+    // /ID [<32 hex digits><32 hex digits>]
+    private static final int HEX = 32;
+
+    private final MessageDigest md5;
+    private final byte[] buffer = new byte[2 * TAIL];
+    private int length;
+
+    DocumentIdOutputStream(OutputStream out) {
+        super(out);
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        while (count > 0) {
+            if (length == buffer.length) {
+                // keep the last TAIL bytes, the trailer might start in there
+                pass(buffer, 0, length - TAIL);
+                System.arraycopy(buffer, length - TAIL, buffer, 0, TAIL);
+                length = TAIL;
+            }
+            final int chunk = Math.min(count, buffer.length - length);
+            System.arraycopy(bytes, offset, buffer, length, chunk);
+            length += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        final int id = lastIndexOfId();
+        // the two hex strings, each between angle brackets
+        final int first = id + ID.length + 1;
+        final int second = first + HEX + 2;
+        if (id < 0 || second + HEX > length || buffer[first - 1] != '<' || buffer[second - 1] != '<') {
+            throw new IllegalStateException("No document ID in the PDF trailer");
+        }
+        md5.update(buffer, 0, first);
+        md5.update(buffer, first + HEX, second - first - HEX);
+        md5.update(buffer, second + HEX, length - second - HEX);
+        final byte[] digest = md5.digest();
+        for (int i = 0; i < digest.length; i++) {
+            final byte high = (byte) Character.forDigit((digest[i] >> 4) & 0xf, 16);
+            final byte low = (byte) Character.forDigit(digest[i] & 0xf, 16);
+            buffer[first + 2 * i] = buffer[second + 2 * i] = high;
+            buffer[first + 2 * i + 1] = buffer[second + 2 * i + 1] = low;
+        }
+        out.write(buffer, 0, length);
+        length = 0;
+        out.flush();
+    }
+
+    private void pass(byte[] bytes, int offset, int count) throws IOException {
+        md5.update(bytes, offset, count);
+        out.write(bytes, offset, count);
+    }
+
+    private int lastIndexOfId() {
+        search:
+        for (int i = length - ID.length; i >= 0; i--) {
+            for (int j = 0; j < ID.length; j++) {
+                if (buffer[i + j] != ID[j]) {
+                    continue search;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
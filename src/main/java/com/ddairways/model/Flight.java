@@ -9,6 +9,7 @@ public class Flight {
     private final Airport destination;
     private final Date departure;
     private final int durationInHours;
+    private final FlightSnapshot snapshot;
 
     public Flight(String code, String number, Airport origin, Airport destination, Date departure, int durationInHours) {
         this.code = code;
@@ -17,6 +18,7 @@ public class Flight {
         this.destination = destination;
         this.departure = departure;
         this.durationInHours = durationInHours;
+        this.snapshot = new FlightSnapshot(this);
     }
 
     public String getCode() {
@@ -27,6 +29,14 @@ public class Flight {
         return number;
     }
 
+    public Airport getOrigin() {
+        return origin;
+    }
+
+    public Airport getDestination() {
+        return destination;
+    }
+
     public String originAirportCode() {
         return origin.getCode();
     }
@@ -36,40 +46,39 @@ public class Flight {
     }
 
     public String getCompleteNumber() {
-        return code + number;
+        return snapshot.getCompleteNumber();
     }
 
     public String getDepartureTime() {
-        return new org.joda.time.DateTime(departure).toString("HH:mm");
+        return snapshot.getDepartureTime();
     }
 
     public String getArrivalTime() {
-        return new org.joda.time.DateTime(departure)
-                .plusHours(durationInHours)
-                .toString("HH:mm");
+        return snapshot.getArrivalTime();
     }
 
     public String getDepartureDate() {
-        return new org.joda.time.DateTime(departure).toString("dd-MMM-yyyy");
+        return snapshot.getDepartureDate();
     }
 
     public Date getDeparture() {
         return departure;
     }
+
+    public int getDurationInHours() {
+        return durationInHours;
+    }
+
+    public FlightSnapshot snapshot() {
+        return snapshot;
+    }
+
     public String getBarcodeData() {
-        return new StringBuilder()
-                .append(code)
-                .append(number)
-                .append(getDepartureDate())
-                .append(originAirportCode())
-                .append(getDepartureTime())
-                .append(destinationAirportCode())
-                .append(getArrivalTime())
-                .toString();
+        return snapshot.getBarcodeData();
     }
 
     public String getOriginDestinationAirportCodes() {
-        return String.format("FROM: %s  TO: %s", origin.getCode(), destination.getCode());
+        return snapshot.getOriginDestinationAirportCodes();
     }
 
     public String getDestinationCity() {
@@ -77,10 +86,10 @@ public class Flight {
     }
 
     public String getOriginCityWithAirportCode() {
-        return String.format("FROM: %s", origin);
+        return snapshot.getOriginCityWithAirportCode();
     }
 
     public String getDestinationCityWithAirportCode() {
-        return String.format("TO: %s", destination);
+        return snapshot.getDestinationCityWithAirportCode();
     }
 }
@@ -0,0 +1,219 @@
+package com.ddairways.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+// Exports the artifacts of every pass of a flight, or of a whole departure bank,
+// into zip archives while the passes are rendered. A bounded window of passes is
+// rendered and deflated concurrently; the calling thread writes their entries in
+// the order of the passes, so memory use does not grow with the number of passes.
+// PDFs and wallet bundles are compressed already and are stored as they are.
+// An archive rolls over to the next once another pass would take it past the
+// size or entry limit; a pass's artifacts always share an archive.
+public class FlightExport {
+    private FlightExport() {
+    }
+
+    public static Result export(Iterable<BoardingPass> passes, BoardingPass.Channel channel, Path directory, String name) throws IOException {
+        return export(passes, channel, directory, name, Settings.DEFAULT);
+    }
+
+    // archives are <name>-001.zip, <name>-002.zip, ... in the directory
+    public static Result export(Iterable<BoardingPass> passes, BoardingPass.Channel channel, Path directory, String name, Settings settings) throws IOException {
+        final Deque<CompletableFuture<Rendered>> window = new ArrayDeque<>(settings.inFlight);
+        final Iterator<BoardingPass> pending = passes.iterator();
+        final List<Path> archives = new ArrayList<>();
+        final List<RenderResult> failures = new ArrayList<>();
+        int exported = 0;
+        ZipArchive archive = null;
+        try {
+            while (pending.hasNext() || !window.isEmpty()) {
+                while (window.size() < settings.inFlight && pending.hasNext()) {
+                    final BoardingPass boardingPass = pending.next();
+                    window.add(CompletableFuture.supplyAsync(() -> render(boardingPass, channel, settings.options), ForkJoinPool.commonPool()));
+                }
+                final Rendered rendered = window.remove().join();
+                if (rendered.failure != null) {
+                    failures.add(RenderResult.failure(rendered.boardingPass, rendered.failure));
+                    continue;
+                }
+                long size = 0;
+                for (ZipArchive.Entry entry : rendered.entries) {
+                    size += entry.archivedSize();
+                }
+                if (archive == null || archive.entries() > 0 && (archive.entries() + rendered.entries.size() > settings.maxArchiveEntries
+                        || archive.size() + size > settings.maxArchiveSize)) {
+                    if (archive != null) {
+                        // not closed again below should the next one fail to open
+                        final ZipArchive full = archive;
+                        archive = null;
+                        full.close();
+                    }
+                    archive = open(directory, name, archives);
+                }
+                for (ZipArchive.Entry entry : rendered.entries) {
+                    archive.write(entry);
+                }
+                exported++;
+            }
+            if (archive == null) {
+                // nothing exported, still an (empty) archive to hand over
+                archive = open(directory, name, archives);
+            }
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+        return new Result(archives, exported, failures);
+    }
+
+    private static ZipArchive open(Path directory, String name, List<Path> archives) throws IOException {
+        final Path path = directory.resolve(String.format("%s-%03d.zip", name, archives.size() + 1));
+        archives.add(path);
+        return new ZipArchive(new BufferedOutputStream(new StageOutputStream(Files.newOutputStream(path), RenderEvent.Stage.WRITE), 64 * 1024));
+    }
+
+    // run by the render tasks, deflating included
+    private static Rendered render(BoardingPass boardingPass, BoardingPass.Channel channel, RenderOptions options) {
+        try {
+            final List<byte[]> artifacts = boardingPass.render(channel, options);
+            final List<ZipArchive.Entry> entries = new ArrayList<>(artifacts.size());
+            for (int i = 0; i < artifacts.size(); i++) {
+                final BoardingPass.Type type = channel.artifacts().get(i);
+                final RenderEvent event = RenderEvent.start(RenderEvent.Stage.ZIP);
+                final ZipArchive.Entry entry = isCompressed(type)
+                        ? ZipArchive.stored(entryName(boardingPass, type), artifacts.get(i))
+                        : ZipArchive.deflated(entryName(boardingPass, type), artifacts.get(i));
+                event.finish(entry.archivedSize());
+                entries.add(entry);
+            }
+            return new Rendered(boardingPass, entries, null);
+        } catch (Exception e) {
+            return new Rendered(boardingPass, null, e);
+        }
+    }
+
+    private static boolean isCompressed(BoardingPass.Type type) {
+        switch (type) {
+            case CALENDAR_EVENT:
+            case KIOSK_ZPL:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    // passengers of a booking share PNR and last name, the sequence number tells them apart
+    static String entryName(BoardingPass boardingPass, BoardingPass.Type type) {
+        return boardingPass.getFlight().getCompleteNumber() + "/" + boardingPass.getSeqNo() + "-" + boardingPass.fileName(type);
+    }
+
+    private static final class Rendered {
+        private final BoardingPass boardingPass;
+        private final List<ZipArchive.Entry> entries;
+        private final Exception failure;
+
+        private Rendered(BoardingPass boardingPass, List<ZipArchive.Entry> entries, Exception failure) {
+            this.boardingPass = boardingPass;
+            this.entries = entries;
+            this.failure = failure;
+        }
+    }
+
+    public static final class Result {
+        private final List<Path> archives;
+        private final int exported;
+        private final List<RenderResult> failures;
+
+        private Result(List<Path> archives, int exported, List<RenderResult> failures) {
+            this.archives = Collections.unmodifiableList(archives);
+            this.exported = exported;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public List<Path> getArchives() {
+            return archives;
+        }
+
+        // passes whose artifacts are in the archives
+        public int getExported() {
+            return exported;
+        }
+
+        // passes that failed to render, left out of the archives
+        public List<RenderResult> getFailures() {
+            return failures;
+        }
+    }
+
+    public static final class Settings {
+        public static final Settings DEFAULT = new Settings(RenderOptions.DEFAULT, 2 * Runtime.getRuntime().availableProcessors(),
+                ZipArchive.MAX_SIZE, ZipArchive.MAX_ENTRIES);
+
+        private final RenderOptions options;
+        private final int inFlight;
+        private final long maxArchiveSize;
+        private final int maxArchiveEntries;
+
+        private Settings(RenderOptions options, int inFlight, long maxArchiveSize, int maxArchiveEntries) {
+            if (inFlight < 1) {
+                throw new IllegalArgumentException("Need at least one pass in flight, was " + inFlight);
+            }
+            if (maxArchiveSize < 1 || maxArchiveSize > ZipArchive.MAX_SIZE) {
+                throw new IllegalArgumentException("Archive size must be between 1 and " + ZipArchive.MAX_SIZE + " bytes, was " + maxArchiveSize);
+            }
+            if (maxArchiveEntries < 1 || maxArchiveEntries > ZipArchive.MAX_ENTRIES) {
+                throw new IllegalArgumentException("Archive entries must be between 1 and " + ZipArchive.MAX_ENTRIES + ", was " + maxArchiveEntries);
+            }
+            this.options = options;
+            this.inFlight = inFlight;
+            this.maxArchiveSize = maxArchiveSize;
+            this.maxArchiveEntries = maxArchiveEntries;
+        }
+
+        public Settings options(RenderOptions options) {
+            return new Settings(options, inFlight, maxArchiveSize, maxArchiveEntries);
+        }
+
+        // passes rendered ahead of the one being written, bounds the memory held
+        public Settings inFlight(int inFlight) {
+            return new Settings(options, inFlight, maxArchiveSize, maxArchiveEntries);
+        }
+
+        // an archive holding a single larger pass can exceed it
+        public Settings maxArchiveSize(long maxArchiveSize) {
+            return new Settings(options, inFlight, maxArchiveSize, maxArchiveEntries);
+        }
+
+        public Settings maxArchiveEntries(int maxArchiveEntries) {
+            return new Settings(options, inFlight, maxArchiveSize, maxArchiveEntries);
+        }
+
+        public RenderOptions getOptions() {
+            return options;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getMaxArchiveSize() {
+            return maxArchiveSize;
+        }
+
+        public int getMaxArchiveEntries() {
+            return maxArchiveEntries;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ddairways.model;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+// Every formatted field of a flight, computed once and shared (immutable)
+// by all passengers on it. Times are in the local zone of the airport.
+public final class FlightSnapshot {
+    private static final DateTimeFormatter TIME = DateTimeFormat.forPattern("HH:mm");
+    private static final DateTimeFormatter DATE = DateTimeFormat.forPattern("dd-MMM-yyyy");
+
+    private final String completeNumber;
+    private final String departureTime;
+    private final String arrivalTime;
+    private final String departureDate;
+    private final int departureDayOfYear;
+    private final String barcodeData;
+    private final String originDestinationAirportCodes;
+    private final String originCityWithAirportCode;
+    private final String destinationCityWithAirportCode;
+
+    FlightSnapshot(Flight flight) {
+        final DateTimeZone originZone = DateTimeZone.forID(flight.getOrigin().getTimeZoneId());
+        final DateTimeZone destinationZone = DateTimeZone.forID(flight.getDestination().getTimeZoneId());
+        final DateTime departure = new DateTime(flight.getDeparture(), originZone);
+        final DateTime arrival = departure.plusHours(flight.getDurationInHours()).withZone(destinationZone);
+
+        completeNumber = flight.getCode() + flight.getNumber();
+        departureTime = TIME.print(departure);
+        arrivalTime = TIME.print(arrival);
+        departureDate = DATE.print(departure);
+        departureDayOfYear = departure.getDayOfYear();
+        barcodeData = new StringBuilder()
+                .append(completeNumber)
+                .append(departureDate)
+                .append(flight.originAirportCode())
+                .append(departureTime)
+                .append(flight.destinationAirportCode())
+                .append(arrivalTime)
+                .toString();
+        originDestinationAirportCodes = String.format("FROM: %s  TO: %s", flight.originAirportCode(), flight.destinationAirportCode());
+        originCityWithAirportCode = String.format("FROM: %s", flight.getOrigin());
+        destinationCityWithAirportCode = String.format("TO: %s", flight.getDestination());
+    }
+
+    public String getCompleteNumber() {
+        return completeNumber;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public String getDepartureDate() {
+        return departureDate;
+    }
+
+    public int getDepartureDayOfYear() {
+        return departureDayOfYear;
+    }
+
+    public String getBarcodeData() {
+        return barcodeData;
+    }
+
+    public String getOriginDestinationAirportCodes() {
+        return originDestinationAirportCodes;
+    }
+
+    public String getOriginCityWithAirportCode() {
+        return originCityWithAirportCode;
+    }
+
+    public String getDestinationCityWithAirportCode() {
+        return destinationCityWithAirportCode;
+    }
+}
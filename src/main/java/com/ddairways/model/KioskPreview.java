@@ -0,0 +1,97 @@
+package com.ddairways.model;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.BadElementException;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+// Pass drawn with Java2D straight into an image for the kiosk screen. Draft
+// quality skips antialiasing and draws the dashed line solid.
+class KioskPreview implements PassCanvas {
+    // module grid of the barcode, as the kiosk PDF encodes it
+    private static final int BARCODE_WIDTH = 400;
+    private static final int BARCODE_HEIGHT = 80;
+
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final float scale;
+    private final float height;
+    private final boolean draft;
+
+    KioskPreview(float width, float height, int pixelWidth, boolean draft) {
+        if (pixelWidth <= 0) {
+            throw new IllegalArgumentException("pixelWidth must be positive: " + pixelWidth);
+        }
+        this.scale = pixelWidth / width;
+        this.height = height;
+        this.draft = draft;
+        this.image = new BufferedImage(pixelWidth, Math.round(height * scale), BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+        if (draft) {
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        } else {
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        }
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLACK);
+    }
+
+    @Override
+    public KioskPreview text(float x, float y, float size, String text) {
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(1, Math.round(size * scale))));
+        graphics.drawString(text, x * scale, (height - y) * scale);
+        return this;
+    }
+
+    @Override
+    public KioskPreview dashedLine(float x, float y, float dash) {
+        final int left = Math.round(x * scale);
+        final int top = Math.round((height - y) * scale);
+        final int bottom = image.getHeight();
+        if (draft) {
+            graphics.drawLine(left, top, left, bottom);
+            return this;
+        }
+        final int length = Math.max(1, Math.round(dash * scale));
+        for (int from = top; from < bottom; from += 2 * length) {
+            graphics.drawLine(left, from, left, Math.min(bottom, from + length) - 1);
+        }
+        return this;
+    }
+
+    // stretched over the area, as the PDF places the barcode image
+    @Override
+    public KioskPreview pdf417(float x, float y, float width, float height, String data) throws WriterException, IOException, BadElementException {
+        final BarcodeImageCache.Barcode barcode = BarcodeImageCache.getInstance().modules(data, BarcodeFormat.PDF_417, BARCODE_WIDTH, BARCODE_HEIGHT);
+        final AffineTransform page = graphics.getTransform();
+        final Object antialiasing = graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        // modules snapped to pixels, edges stay sharp for scanning off the screen
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        graphics.translate(x * scale, (this.height - y) * scale);
+        graphics.scale(width * scale / barcode.getWidth(), height * scale / barcode.getHeight());
+        final int[] rectangles = barcode.getRectangles();
+        for (int i = 0; i < rectangles.length; i += 4) {
+            graphics.fillRect(rectangles[i], rectangles[i + 1], rectangles[i + 2], rectangles[i + 3]);
+        }
+        graphics.setTransform(page);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        return this;
+    }
+
+    BufferedImage finish() {
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ddairways.model;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Shields a caller-owned stream from writers (PdfWriter, CalendarOutputter)
+// that close whatever they are given; close() only flushes.
+class NonClosingOutputStream extends FilterOutputStream {
+    NonClosingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,20 @@
+package com.ddairways.model;
+
+import com.google.zxing.WriterException;
+import com.itextpdf.text.BadElementException;
+
+import java.io.IOException;
+
+// Drawing surface for pass layouts rendered without iText, shared so the
+// printer and screen renderers lay a pass out alike. Positions are in PDF
+// points from the bottom left of the page, as in the PDF layouts.
+interface PassCanvas {
+    // text with its baseline at x, y
+    PassCanvas text(float x, float y, float size, String text);
+
+    // dashed vertical line at x, from y down to the bottom of the page
+    PassCanvas dashedLine(float x, float y, float dash);
+
+    // PDF417 barcode within width x height points from its top left corner
+    PassCanvas pdf417(float x, float y, float width, float height, String data) throws WriterException, IOException, BadElementException;
+}
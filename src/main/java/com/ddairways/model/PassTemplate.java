@@ -0,0 +1,76 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Static layout of a pass type (headers, boxes, cut lines and blank detail
+// tables), rendered once and imported as a form into every page of a group PDF.
+// Rebuilt when the shared assets are reloaded.
+final class PassTemplate {
+    interface Layout {
+        PassTemplate build() throws IOException, DocumentException;
+    }
+
+    private static final ConcurrentMap<BoardingPass.Type, PassTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final BoardingPassAssets assets;
+    private final byte[] layout;
+    private final List<float[]> tables;
+    // a PdfReader can be imported by one writer at a time; a parsed layout of one or
+    // two KB, cheap enough to keep one per thread, unlike the buffers of RenderContext
+    private final ThreadLocal<PdfReader> readers;
+
+    PassTemplate(BoardingPassAssets assets, byte[] layout, List<float[]> tables) {
+        this.assets = assets;
+        this.layout = layout;
+        this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+        this.readers = ThreadLocal.withInitial(() -> {
+            try {
+                return new PdfReader(this.layout);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static PassTemplate of(BoardingPass.Type type, Layout layout) throws IOException, DocumentException {
+        PassTemplate template = TEMPLATES.get(type);
+        if (template == null || template.assets != BoardingPassAssets.get()) {
+            template = layout.build();
+            TEMPLATES.put(type, template);
+        }
+        return template;
+    }
+
+    void stamp(PdfWriter writer, PdfPTable details) {
+        writer.getDirectContentUnder().addTemplate(writer.getImportedPage(readers.get(), 1), 0, 0);
+        final PdfContentByte canvas = writer.getDirectContent();
+        for (float[] table : tables) {
+            details.setTotalWidth(table[2]);
+            details.writeSelectedRows(0, -1, table[0], table[1], canvas);
+        }
+    }
+
+    // Records where the document flow placed each detail table (left, top, width).
+    static class TablePositions implements PdfPTableEvent {
+        private final List<float[]> positions = new ArrayList<>();
+
+        @Override
+        public void tableLayout(PdfPTable table, float[][] widths, float[] heights, int headerRows, int rowStart, PdfContentByte[] canvases) {
+            final float[] row = widths[0];
+            positions.add(new float[]{row[0], heights[0], row[row.length - 1] - row[0]});
+        }
+
+        List<float[]> positions() {
+            return positions;
+        }
+    }
+}
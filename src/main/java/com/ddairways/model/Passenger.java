@@ -32,6 +32,10 @@ public class Passenger {
         return lastName;
     }
 
+    public String getEmail() {
+        return email;
+    }
+
     public String getTravelClass() {
         return travelClass;
     }
@@ -0,0 +1,70 @@
+package com.ddairways.model;
+
+import java.awt.geom.AffineTransform;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// State reused from one render to the next, so steady-state rendering does not
+// allocate (and grow) output buffers, writers and transforms every time. Contexts
+// are pooled rather than kept per thread: renders run on callers' threads, the
+// common pool and service workers alike, and a pool keeps the number of (up to
+// 1 MB) buffers bounded by the renders in progress, not by the threads that ever
+// rendered, and a context grown on a short-lived thread is not lost with it.
+class RenderContext {
+    // a channel render holds up to three at once
+    private static final BlockingQueue<RenderContext> POOL = new ArrayBlockingQueue<>(4 * Runtime.getRuntime().availableProcessors());
+    // large enough for every artifact, kept unless a render grew it past the limit
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    // by type ordinal
+    private final Buffer[] buffers = new Buffer[BoardingPass.Type.values().length];
+    private final AffineTransform transform = new AffineTransform();
+    private final Utf8Writer writer = new Utf8Writer();
+
+    // exclusive to the caller until release()
+    static RenderContext acquire() {
+        final RenderContext context = POOL.poll();
+        return context != null ? context : new RenderContext();
+    }
+
+    void release() {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] != null && buffers[i].capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                buffers[i] = null;
+            }
+        }
+        // dropped when the pool is full
+        POOL.offer(this);
+    }
+
+    // empty buffer for the artifact, one per type and context
+    Buffer buffer(BoardingPass.Type type) {
+        Buffer buffer = buffers[type.ordinal()];
+        if (buffer == null) {
+            buffer = buffers[type.ordinal()] = new Buffer(BUFFER_SIZE);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    AffineTransform transform() {
+        transform.setToIdentity();
+        return transform;
+    }
+
+    Utf8Writer writer() {
+        return writer;
+    }
+
+    static class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
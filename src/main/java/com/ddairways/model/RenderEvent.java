@@ -0,0 +1,110 @@
+package com.ddairways.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event around one stage of rendering an artifact. Channel, type and flight
+// come from the render running on the current thread (see tag), so stages deep
+// in the barcode cache or the sinks are attributed without passing them around.
+@Name("com.ddairways.RenderStage")
+@Label("Render Stage")
+@Category({"DD Airways", "Boarding Pass"})
+@Description("A stage of rendering a boarding pass artifact")
+@StackTrace(false)
+final class RenderEvent extends Event {
+    enum Stage {
+        // barcode text built from the pass
+        PAYLOAD,
+        // ZXing encoding the barcode text to a BitMatrix
+        BARCODE,
+        // BitMatrix converted to the embedded JPEG/CCITT image or vector template
+        IMAGE,
+        // iText laying out and writing a PDF artifact
+        PDF,
+        // ical4j building and writing the calendar event
+        ICS,
+        // building and writing a printer command stream
+        ZPL,
+        // building and zipping a wallet pass bundle
+        WALLET,
+        // deflating into a zip entry
+        ZIP,
+        // writing to a file
+        WRITE
+    }
+
+    private static final ThreadLocal<Tags> TAGS = new ThreadLocal<>();
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Channel")
+    String channel;
+
+    @Label("Type")
+    String type;
+
+    @Label("Flight")
+    String flight;
+
+    @Label("Size")
+    @Description("Bytes produced by the stage")
+    @DataAmount
+    long size;
+
+    static RenderEvent start(Stage stage) {
+        final RenderEvent event = new RenderEvent();
+        event.stage = stage.name();
+        event.begin();
+        return event;
+    }
+
+    void finish(long size) {
+        end();
+        if (shouldCommit()) {
+            final Tags tags = TAGS.get();
+            if (tags != null) {
+                this.channel = tags.channel;
+                this.type = tags.type;
+                this.flight = tags.flight;
+            }
+            this.size = size;
+            commit();
+        }
+    }
+
+    // Tags the stages run by the current thread until the returned scope is closed.
+    static Tags tag(BoardingPass.Channel channel, BoardingPass.Type type, Flight flight) {
+        final Tags tags = new Tags(TAGS.get(), channel.name(), type.name(), flight.getCompleteNumber());
+        TAGS.set(tags);
+        return tags;
+    }
+
+    static final class Tags implements AutoCloseable {
+        private final Tags previous;
+        private final String channel;
+        private final String type;
+        private final String flight;
+
+        private Tags(Tags previous, String channel, String type, String flight) {
+            this.previous = previous;
+            this.channel = channel;
+            this.type = type;
+            this.flight = flight;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                TAGS.remove();
+            } else {
+                TAGS.set(previous);
+            }
+        }
+    }
+}
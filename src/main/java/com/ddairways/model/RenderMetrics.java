@@ -0,0 +1,198 @@
+package com.ddairways.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Meters of BoardingPass.render and writeFileFor: latency per channel, count,
+// latency and bytes per artifact type, and failures by exception type.
+// Recording is lock-free; snapshot() and the text exposition read them.
+public class RenderMetrics {
+    private static final RenderMetrics INSTANCE = new RenderMetrics();
+
+    private final LatencyHistogram[] renders = histograms(BoardingPass.Channel.values().length);
+    private final LatencyHistogram[] fileWrites = histograms(BoardingPass.Channel.values().length);
+    private final LatencyHistogram[] artifacts = histograms(BoardingPass.Type.values().length);
+    private final LongAdder[] bytes = adders(BoardingPass.Type.values().length);
+    private final ConcurrentMap<String, LongAdder> renderErrors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> fileWriteErrors = new ConcurrentHashMap<>();
+
+    public static RenderMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    void rendered(BoardingPass.Channel channel, long nanos) {
+        renders[channel.ordinal()].record(nanos);
+    }
+
+    void renderFailed(Exception e) {
+        count(renderErrors, e);
+    }
+
+    void fileWritten(BoardingPass.Channel channel, long nanos) {
+        fileWrites[channel.ordinal()].record(nanos);
+    }
+
+    void fileWriteFailed(Exception e) {
+        count(fileWriteErrors, e);
+    }
+
+    void produced(BoardingPass.Type type, long nanos, long size) {
+        artifacts[type.ordinal()].record(nanos);
+        bytes[type.ordinal()].add(size);
+    }
+
+    private static void count(ConcurrentMap<String, LongAdder> errors, Exception e) {
+        errors.computeIfAbsent(e.getClass().getName(), name -> new LongAdder()).increment();
+    }
+
+    public Snapshot snapshot() {
+        final Map<BoardingPass.Channel, LatencyHistogram.Snapshot> renders = new EnumMap<>(BoardingPass.Channel.class);
+        final Map<BoardingPass.Channel, LatencyHistogram.Snapshot> fileWrites = new EnumMap<>(BoardingPass.Channel.class);
+        for (BoardingPass.Channel channel : BoardingPass.Channel.values()) {
+            renders.put(channel, this.renders[channel.ordinal()].snapshot());
+            fileWrites.put(channel, this.fileWrites[channel.ordinal()].snapshot());
+        }
+        final Map<BoardingPass.Type, LatencyHistogram.Snapshot> artifacts = new EnumMap<>(BoardingPass.Type.class);
+        final Map<BoardingPass.Type, Long> bytes = new EnumMap<>(BoardingPass.Type.class);
+        for (BoardingPass.Type type : BoardingPass.Type.values()) {
+            artifacts.put(type, this.artifacts[type.ordinal()].snapshot());
+            bytes.put(type, this.bytes[type.ordinal()].sum());
+        }
+        return new Snapshot(renders, fileWrites, artifacts, bytes, sums(renderErrors), sums(fileWriteErrors));
+    }
+
+    // Prometheus text format, latencies in seconds.
+    public void writeExposition(Writer out) throws IOException {
+        final Snapshot snapshot = snapshot();
+        summary(out, "boarding_pass_render_seconds", "Latency of rendering all artifacts of a channel", "channel", snapshot.renders);
+        summary(out, "boarding_pass_write_file_seconds", "Latency of writing the files of a channel", "channel", snapshot.fileWrites);
+        summary(out, "boarding_pass_artifact_seconds", "Latency of rendering one artifact", "type", snapshot.artifacts);
+
+        header(out, "boarding_pass_artifact_bytes_total", "Bytes of rendered artifacts", "counter");
+        for (Map.Entry<BoardingPass.Type, Long> entry : snapshot.bytes.entrySet()) {
+            out.write("boarding_pass_artifact_bytes_total{type=\"" + entry.getKey() + "\"} " + entry.getValue() + "\n");
+        }
+
+        header(out, "boarding_pass_errors_total", "Failed renders and file writes by exception type", "counter");
+        errors(out, "render", snapshot.renderErrors);
+        errors(out, "write_file", snapshot.fileWriteErrors);
+    }
+
+    public String exposition() {
+        final StringWriter out = new StringWriter();
+        try {
+            writeExposition(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static <K> void summary(Writer out, String name, String help, String label, Map<K, LatencyHistogram.Snapshot> histograms) throws IOException {
+        header(out, name, help, "summary");
+        for (Map.Entry<K, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+            final String labels = label + "=\"" + entry.getKey() + "\"";
+            final LatencyHistogram.Snapshot histogram = entry.getValue();
+            for (String quantile : new String[]{"0.5", "0.99", "0.999"}) {
+                out.write(name + "{" + labels + ",quantile=\"" + quantile + "\"} "
+                        + seconds(histogram.getPercentileNanos(Double.parseDouble(quantile))) + "\n");
+            }
+            out.write(name + "_sum{" + labels + "} " + seconds(histogram.getSumNanos()) + "\n");
+            out.write(name + "_count{" + labels + "} " + histogram.getCount() + "\n");
+        }
+    }
+
+    private static void errors(Writer out, String operation, Map<String, Long> errors) throws IOException {
+        for (Map.Entry<String, Long> entry : errors.entrySet()) {
+            out.write("boarding_pass_errors_total{operation=\"" + operation + "\",exception=\"" + entry.getKey() + "\"} " + entry.getValue() + "\n");
+        }
+    }
+
+    private static void header(Writer out, String name, String help, String type) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static Map<String, Long> sums(ConcurrentMap<String, LongAdder> adders) {
+        final Map<String, Long> sums = new TreeMap<>();
+        adders.forEach((name, adder) -> sums.put(name, adder.sum()));
+        return Collections.unmodifiableMap(sums);
+    }
+
+    private static LatencyHistogram[] histograms(int size) {
+        final LatencyHistogram[] histograms = new LatencyHistogram[size];
+        for (int i = 0; i < size; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static LongAdder[] adders(int size) {
+        final LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static final class Snapshot {
+        private final Map<BoardingPass.Channel, LatencyHistogram.Snapshot> renders;
+        private final Map<BoardingPass.Channel, LatencyHistogram.Snapshot> fileWrites;
+        private final Map<BoardingPass.Type, LatencyHistogram.Snapshot> artifacts;
+        private final Map<BoardingPass.Type, Long> bytes;
+        private final Map<String, Long> renderErrors;
+        private final Map<String, Long> fileWriteErrors;
+
+        private Snapshot(Map<BoardingPass.Channel, LatencyHistogram.Snapshot> renders,
+                         Map<BoardingPass.Channel, LatencyHistogram.Snapshot> fileWrites,
+                         Map<BoardingPass.Type, LatencyHistogram.Snapshot> artifacts,
+                         Map<BoardingPass.Type, Long> bytes,
+                         Map<String, Long> renderErrors,
+                         Map<String, Long> fileWriteErrors) {
+            this.renders = renders;
+            this.fileWrites = fileWrites;
+            this.artifacts = artifacts;
+            this.bytes = bytes;
+            this.renderErrors = renderErrors;
+            this.fileWriteErrors = fileWriteErrors;
+        }
+
+        public LatencyHistogram.Snapshot getRenders(BoardingPass.Channel channel) {
+            return renders.get(channel);
+        }
+
+        public LatencyHistogram.Snapshot getFileWrites(BoardingPass.Channel channel) {
+            return fileWrites.get(channel);
+        }
+
+        public LatencyHistogram.Snapshot getArtifacts(BoardingPass.Type type) {
+            return artifacts.get(type);
+        }
+
+        public long getBytes(BoardingPass.Type type) {
+            return bytes.get(type);
+        }
+
+        // exception class name to count
+        public Map<String, Long> getRenderErrors() {
+            return renderErrors;
+        }
+
+        public Map<String, Long> getFileWriteErrors() {
+            return fileWriteErrors;
+        }
+    }
+}
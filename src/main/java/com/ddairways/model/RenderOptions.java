@@ -0,0 +1,54 @@
+package com.ddairways.model;
+
+// How the artifacts of a channel are rendered, DEFAULT gives the regular output.
+public final class RenderOptions {
+    public static final RenderOptions DEFAULT = new RenderOptions(BarcodeStyle.JPEG, false, false);
+
+    private final BarcodeStyle barcodeStyle;
+    private final boolean deterministic;
+    private final boolean compact;
+
+    private RenderOptions(BarcodeStyle barcodeStyle, boolean deterministic, boolean compact) {
+        this.barcodeStyle = barcodeStyle;
+        this.deterministic = deterministic;
+        this.compact = compact;
+    }
+
+    public RenderOptions barcodeStyle(BarcodeStyle barcodeStyle) {
+        if (barcodeStyle == null) {
+            throw new IllegalArgumentException("barcodeStyle must not be null");
+        }
+        return new RenderOptions(barcodeStyle, deterministic, compact);
+    }
+
+    // Identical inputs give identical bytes: PDFs carry no creation dates and a
+    // document ID hashed from their content, calendar events are stamped with
+    // the departure instead of the time of rendering.
+    public RenderOptions deterministic(boolean deterministic) {
+        return new RenderOptions(barcodeStyle, deterministic, compact);
+    }
+
+    // Smallest PDFs: compressed object and cross-reference streams at the best
+    // compression level, 1-bit barcodes (CCITT unless VECTOR is chosen) and an
+    // empty document information dictionary.
+    public RenderOptions compact(boolean compact) {
+        return new RenderOptions(barcodeStyle, deterministic, compact);
+    }
+
+    public BarcodeStyle getBarcodeStyle() {
+        return compact && barcodeStyle == BarcodeStyle.JPEG ? BarcodeStyle.CCITT : barcodeStyle;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    // every option affecting the output, for caches keyed by the render inputs
+    String key() {
+        return "barcodeStyle=" + barcodeStyle + ";deterministic=" + deterministic + ";compact=" + compact;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ddairways.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public class RenderResult {
+    private final BoardingPass boardingPass;
+    private final List<byte[]> artifacts;
+    private final Exception failure;
+
+    private RenderResult(BoardingPass boardingPass, List<byte[]> artifacts, Exception failure) {
+        this.boardingPass = boardingPass;
+        this.artifacts = artifacts;
+        this.failure = failure;
+    }
+
+    public static RenderResult success(BoardingPass boardingPass, List<byte[]> artifacts) {
+        return new RenderResult(boardingPass, artifacts, null);
+    }
+
+    public static RenderResult failure(BoardingPass boardingPass, Exception failure) {
+        return new RenderResult(boardingPass, Collections.emptyList(), failure);
+    }
+
+    public BoardingPass getBoardingPass() {
+        return boardingPass;
+    }
+
+    public List<byte[]> getArtifacts() {
+        return artifacts;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,430 @@
+package com.ddairways.model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Embeddable HTTP front of BoardingPass.render.
+//
+//   POST /render  (application/x-www-form-urlencoded)
+//     channel, flightCode, flightNumber, origin, originCity, destination,
+//     destinationCity, departure (local date-time at origin, 2019-03-21T10:45),
+//     durationInHours, firstName, lastName, email, travelClass, pnr, seat, seqNo
+//     optional: gate, originTimeZone, destinationTimeZone
+//   -> the artifact (application/pdf), or a zip of them when the channel has more than one
+//   GET /metrics -> RenderMetrics text exposition plus the service counters
+//
+// The server's dispatcher thread only looks at the request headers (forms over
+// 16 KB answer 413); the form is read, parsed and rendered on a fixed pool of
+// workers behind a bounded queue. A full queue answers 503 at once, a render
+// taking longer than the timeout answers 504; the dispatcher never blocks.
+public class RenderService implements AutoCloseable {
+    private static final String[] REQUIRED = {
+            "channel", "flightCode", "flightNumber", "origin", "originCity", "destination", "destinationCity",
+            "departure", "durationInHours", "firstName", "lastName", "email", "travelClass", "pnr", "seat", "seqNo"
+    };
+
+    // the form is a few hundred bytes
+    private static final int MAX_FORM_SIZE = 16 * 1024;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+    private final Settings settings;
+    private final boolean virtualThreads;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private RenderService(InetSocketAddress address, Settings settings) throws IOException {
+        this.settings = settings;
+        final ThreadFactory virtual = settings.virtualThreads ? virtualThreadFactory() : null;
+        this.virtualThreads = virtual != null;
+        final BlockingQueue<Runnable> queue = settings.queueCapacity == 0
+                ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(settings.queueCapacity);
+        this.workers = new ThreadPoolExecutor(settings.workers, settings.workers, 0, TimeUnit.MILLISECONDS, queue,
+                virtual != null ? virtual : daemonThreads("render-worker-"), new ThreadPoolExecutor.AbortPolicy());
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, daemonThreads("render-timeout-"));
+        // renders finishing in time cancel their timeout, drop it from the queue right away
+        timer.setRemoveOnCancelPolicy(true);
+        this.timer = timer;
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/render", this::render);
+        this.server.createContext("/metrics", this::metrics);
+    }
+
+    public static RenderService start(InetSocketAddress address) throws IOException {
+        return start(address, Settings.DEFAULT);
+    }
+
+    public static RenderService start(InetSocketAddress address, Settings settings) throws IOException {
+        final RenderService service = new RenderService(address, settings);
+        service.server.start();
+        return service;
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // shared with tests occupying the workers
+    ThreadPoolExecutor workers() {
+        return workers;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private void render(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "text/plain", bytes("POST a form to /render"));
+            return;
+        }
+        // only the headers are looked at here, the body is read by the worker
+        final String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && !length.matches("\\d{1,18}")) {
+            respond(exchange, 400, "text/plain", bytes("Invalid Content-Length " + length));
+            return;
+        }
+        if (length != null && Long.parseLong(length) > MAX_FORM_SIZE) {
+            respond(exchange, 413, "text/plain", bytes("Forms are limited to " + MAX_FORM_SIZE + " bytes"));
+            return;
+        }
+
+        // whoever answers first, the worker or the timeout, owns the exchange
+        final AtomicBoolean answered = new AtomicBoolean();
+        final AtomicReference<Future<?>> deadline = new AtomicReference<>();
+        final Future<?> rendering;
+        try {
+            rendering = workers.submit(() -> {
+                try {
+                    answer(exchange, answered);
+                } catch (Exception e) {
+                    // counted here and by exception type in RenderMetrics, the client learns nothing of the cause
+                    failed.increment();
+                    if (answered.compareAndSet(false, true)) {
+                        respond(exchange, 500, "text/plain", bytes("Render failed"));
+                    }
+                }
+                final Future<?> timeout = deadline.get();
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "text/plain", bytes("Render queue is full"));
+            return;
+        }
+        accepted.increment();
+        deadline.set(timer.schedule(() -> {
+            if (answered.compareAndSet(false, true)) {
+                timedOut.increment();
+                rendering.cancel(true);
+                respond(exchange, 504, "text/plain", bytes("Render took longer than " + settings.timeout.toMillis() + " ms"));
+            }
+        }, settings.timeout.toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    // Runs on the worker: reads and parses the form, then renders on this thread
+    // alone, so the worker pool bounds the renders running at once and a timed
+    // out render, interrupted, stops before its next artifact.
+    private static void answer(HttpExchange exchange, AtomicBoolean answered) throws Exception {
+        final BoardingPass boardingPass;
+        final BoardingPass.Channel channel;
+        try {
+            final byte[] body = readAll(exchange.getRequestBody(), MAX_FORM_SIZE);
+            if (body == null) {
+                if (answered.compareAndSet(false, true)) {
+                    respond(exchange, 413, "text/plain", bytes("Forms are limited to " + MAX_FORM_SIZE + " bytes"));
+                }
+                return;
+            }
+            final Map<String, String> form = form(body);
+            boardingPass = boardingPass(form);
+            channel = BoardingPass.Channel.valueOf(form.get("channel"));
+        } catch (IllegalArgumentException e) {
+            if (answered.compareAndSet(false, true)) {
+                respond(exchange, 400, "text/plain", bytes(e.getMessage()));
+            }
+            return;
+        }
+
+        final Map<BoardingPass.Type, ByteArrayOutputStream> buffers = new EnumMap<>(BoardingPass.Type.class);
+        for (BoardingPass.Type type : channel.artifacts()) {
+            buffers.put(type, new ByteArrayOutputStream());
+        }
+        boardingPass.render(channel, ArtifactSink.oneAtATime(ArtifactSink.toStreams(buffers)));
+        final List<byte[]> artifacts = new ArrayList<>(buffers.size());
+        for (BoardingPass.Type type : channel.artifacts()) {
+            artifacts.add(buffers.get(type).toByteArray());
+        }
+        if (answered.compareAndSet(false, true)) {
+            if (channel.artifacts().size() == 1) {
+                respond(exchange, 200, contentType(channel.artifacts().get(0)), artifacts.get(0), fileName(boardingPass, channel));
+            } else {
+                respond(exchange, 200, "application/zip", zip(boardingPass, channel, artifacts), fileName(boardingPass, channel));
+            }
+        }
+    }
+
+    private void metrics(HttpExchange exchange) {
+        final StringBuilder body = new StringBuilder(RenderMetrics.getInstance().exposition());
+        body.append("# HELP boarding_pass_service_requests_total Render requests by outcome\n");
+        body.append("# TYPE boarding_pass_service_requests_total counter\n");
+        body.append("boarding_pass_service_requests_total{outcome=\"accepted\"} ").append(accepted.sum()).append('\n');
+        body.append("boarding_pass_service_requests_total{outcome=\"shed\"} ").append(shed.sum()).append('\n');
+        body.append("boarding_pass_service_requests_total{outcome=\"timed_out\"} ").append(timedOut.sum()).append('\n');
+        body.append("boarding_pass_service_requests_total{outcome=\"failed\"} ").append(failed.sum()).append('\n');
+        body.append("# HELP boarding_pass_service_queue_depth Renders waiting for a worker\n");
+        body.append("# TYPE boarding_pass_service_queue_depth gauge\n");
+        body.append("boarding_pass_service_queue_depth ").append(workers.getQueue().size()).append('\n');
+        respond(exchange, 200, "text/plain; version=0.0.4", bytes(body.toString()));
+    }
+
+    private static BoardingPass boardingPass(Map<String, String> form) {
+        for (String field : REQUIRED) {
+            if (form.get(field) == null || form.get(field).isEmpty()) {
+                throw new IllegalArgumentException("Missing form field " + field);
+            }
+        }
+        final Airport origin = new Airport(form.get("origin"), form.get("originCity"),
+                form.getOrDefault("originTimeZone", Airport.DEFAULT_TIME_ZONE_ID));
+        final Airport destination = new Airport(form.get("destination"), form.get("destinationCity"),
+                form.getOrDefault("destinationTimeZone", Airport.DEFAULT_TIME_ZONE_ID));
+        final DateTimeZone zone = DateTimeZone.forID(origin.getTimeZoneId());
+        final Flight flight = new Flight(form.get("flightCode"), form.get("flightNumber"), origin, destination,
+                LocalDateTime.parse(form.get("departure")).toDateTime(zone).toDate(),
+                Integer.parseInt(form.get("durationInHours")));
+        final Passenger passenger = new Passenger(form.get("firstName"), form.get("lastName"), form.get("email"), form.get("travelClass"));
+        return new BoardingPass(flight, passenger, form.get("pnr"), form.get("seat"), form.get("seqNo"), form.get("gate"));
+    }
+
+    private static Map<String, String> form(byte[] body) {
+        final Map<String, String> form = new HashMap<>();
+        final String encoded = new String(body, StandardCharsets.UTF_8);
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            final int equals = pair.indexOf('=');
+            final String name = equals < 0 ? pair : pair.substring(0, equals);
+            final String value = equals < 0 ? "" : pair.substring(equals + 1);
+            form.put(decode(name), decode(value));
+        }
+        return form;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // null once the body is longer than the limit, Content-Length may be missing (chunked)
+    private static byte[] readAll(InputStream in, int limit) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > limit) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zip(BoardingPass boardingPass, BoardingPass.Channel channel, List<byte[]> artifacts) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < artifacts.size(); i++) {
+                zip.putNextEntry(new ZipEntry(boardingPass.fileName(channel.artifacts().get(i))));
+                zip.write(artifacts.get(i));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String fileName(BoardingPass boardingPass, BoardingPass.Channel channel) {
+        if (channel.artifacts().size() == 1) {
+            return boardingPass.fileName(channel.artifacts().get(0));
+        }
+        return channel.name().toLowerCase() + "-boarding-passes-" + boardingPass.getPnr() + "-" + boardingPass.getPassenger().getLastName() + ".zip";
+    }
+
+    private static String contentType(BoardingPass.Type type) {
+        switch (type) {
+            case CALENDAR_EVENT:
+                return "text/calendar";
+            case KIOSK_ZPL:
+                return "application/zpl";
+            case MOBILE_WALLET:
+                return "application/zip";
+            default:
+                return "application/pdf";
+        }
+    }
+
+    // The file name carries the form's pnr and last name: the quoted filename keeps
+    // only safe ASCII, a name that lost characters also goes percent-encoded in
+    // filename* (RFC 6266), which clients prefer.
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body, String fileName) {
+        final StringBuilder safe = new StringBuilder(fileName.length());
+        final StringBuilder encoded = new StringBuilder(fileName.length());
+        for (byte b : fileName.getBytes(StandardCharsets.UTF_8)) {
+            final char c = (char) (b & 0xff);
+            if (isSafe(c)) {
+                safe.append(c);
+                encoded.append(c);
+            } else {
+                // one underscore per character, not per byte
+                if ((b & 0xc0) != 0x80) {
+                    safe.append('_');
+                }
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        String disposition = "attachment; filename=\"" + safe + "\"";
+        if (!safe.toString().equals(fileName)) {
+            disposition += "; filename*=UTF-8''" + encoded;
+        }
+        exchange.getResponseHeaders().set("Content-Disposition", disposition);
+        respond(exchange, status, contentType, body);
+    }
+
+    private static boolean isSafe(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.';
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // the client went away, nothing left to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Thread.ofVirtual().factory() on JDKs that have it, looked up reflectively
+    // as the build targets Java 11; null otherwise.
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static final class Settings {
+        public static final Settings DEFAULT = new Settings(Runtime.getRuntime().availableProcessors(), 64, Duration.ofSeconds(10), false);
+
+        private final int workers;
+        private final int queueCapacity;
+        private final Duration timeout;
+        private final boolean virtualThreads;
+
+        private Settings(int workers, int queueCapacity, Duration timeout, boolean virtualThreads) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("Need at least one worker, was " + workers);
+            }
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException("Queue capacity must not be negative, was " + queueCapacity);
+            }
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Timeout must be positive, was " + timeout);
+            }
+            this.workers = workers;
+            this.queueCapacity = queueCapacity;
+            this.timeout = timeout;
+            this.virtualThreads = virtualThreads;
+        }
+
+        public Settings workers(int workers) {
+            return new Settings(workers, queueCapacity, timeout, virtualThreads);
+        }
+
+        // renders waiting for a worker before requests are shed, 0 for none
+        public Settings queueCapacity(int queueCapacity) {
+            return new Settings(workers, queueCapacity, timeout, virtualThreads);
+        }
+
+        public Settings timeout(Duration timeout) {
+            return new Settings(workers, queueCapacity, timeout, virtualThreads);
+        }
+
+        // run the workers on virtual threads where the JDK supports them
+        public Settings virtualThreads(boolean virtualThreads) {
+            return new Settings(workers, queueCapacity, timeout, virtualThreads);
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+    }
+}
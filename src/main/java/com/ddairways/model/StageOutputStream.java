@@ -0,0 +1,36 @@
+package com.ddairways.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Records a render event around every write into the wrapped destination.
+// Sits below a buffer so that an event covers a whole chunk.
+class StageOutputStream extends CountingOutputStream {
+    private final RenderEvent.Stage stage;
+
+    StageOutputStream(OutputStream out, RenderEvent.Stage stage) {
+        super(out);
+        this.stage = stage;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        final RenderEvent event = RenderEvent.start(stage);
+        super.write(b);
+        event.finish(1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        final RenderEvent event = RenderEvent.start(stage);
+        super.write(bytes, offset, length);
+        event.finish(length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        final RenderEvent event = RenderEvent.start(stage);
+        out.close();
+        event.finish(0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.ddairways.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+// UTF-8 writer meant to be kept and re-bound to each destination, unlike an
+// OutputStreamWriter it allocates nothing per write. ical4j folds calendars
+// one char at a time, which through an OutputStreamWriter wraps a CharBuffer
+// per char. Unpaired surrogates are written as '?', as OutputStreamWriter does.
+class Utf8Writer extends Writer {
+    private final byte[] bytes = new byte[8192];
+    private int count;
+    // high surrogate waiting for its pair
+    private char high;
+    private OutputStream out;
+
+    Utf8Writer bind(OutputStream out) {
+        this.out = out;
+        this.count = 0;
+        this.high = 0;
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (count + 4 > bytes.length) {
+            flushBuffer();
+        }
+        final char ch = (char) c;
+        if (high != 0) {
+            final char pending = high;
+            high = 0;
+            if (Character.isLowSurrogate(ch)) {
+                final int codePoint = Character.toCodePoint(pending, ch);
+                bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+                return;
+            }
+            bytes[count++] = '?';
+            write(c);
+        } else if (ch < 0x80) {
+            bytes[count++] = (byte) ch;
+        } else if (ch < 0x800) {
+            bytes[count++] = (byte) (0xc0 | (ch >> 6));
+            bytes[count++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch)) {
+            high = ch;
+        } else if (Character.isLowSurrogate(ch)) {
+            bytes[count++] = '?';
+        } else {
+            bytes[count++] = (byte) (0xe0 | (ch >> 12));
+            bytes[count++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+            bytes[count++] = (byte) (0x80 | (ch & 0x3f));
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String s, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    // Ends the output (a dangling high surrogate becomes '?') without closing
+    // the destination, which belongs to the caller.
+    @Override
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        if (high != 0) {
+            high = 0;
+            bytes[count++] = '?';
+        }
+        flush();
+        out = null;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(bytes, 0, count);
+            count = 0;
+        }
+    }
+}
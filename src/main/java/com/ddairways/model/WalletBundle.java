@@ -0,0 +1,104 @@
+package com.ddairways.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Zip of the files making up a wallet pass plus manifest.json, listing the
+// SHA-256 of every file so the phone can verify the bundle. Entries carry a
+// fixed time, identical passes give identical bundles.
+class WalletBundle {
+    static final String MANIFEST = "manifest.json";
+    // earliest time a zip entry can hold
+    private static final long ENTRY_TIME = new GregorianCalendar(1980, Calendar.JANUARY, 1).getTimeInMillis();
+
+    private final Map<String, byte[]> files = new LinkedHashMap<>();
+
+    WalletBundle add(String name, String content) {
+        files.put(name, content.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        final Map<String, Object> manifest = new LinkedHashMap<>();
+        final ZipOutputStream zip = new ZipOutputStream(new NonClosingOutputStream(out), StandardCharsets.UTF_8);
+        zip.setLevel(Deflater.BEST_COMPRESSION);
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            write(zip, file.getKey(), file.getValue());
+            manifest.put(file.getKey(), sha256(file.getValue()));
+        }
+        write(zip, MANIFEST, json(manifest).getBytes(StandardCharsets.UTF_8));
+        // closing finishes the zip, the destination stays open
+        zip.close();
+    }
+
+    private static void write(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            final StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compact JSON of nested maps, strings and numbers, in the maps' order.
+    static String json(Map<String, ?> object) {
+        final StringBuilder json = new StringBuilder(512);
+        append(json, object);
+        return json.toString();
+    }
+
+    private static void append(StringBuilder json, Object value) {
+        if (value instanceof Map) {
+            json.append('{');
+            String separator = "";
+            for (Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()) {
+                json.append(separator);
+                append(json, String.valueOf(member.getKey()));
+                json.append(':');
+                append(json, member.getValue());
+                separator = ",";
+            }
+            json.append('}');
+        } else if (value instanceof Number) {
+            json.append(value);
+        } else if (value == null) {
+            json.append("null");
+        } else {
+            json.append('"');
+            final String s = value.toString();
+            for (int i = 0; i < s.length(); i++) {
+                final char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+    }
+}
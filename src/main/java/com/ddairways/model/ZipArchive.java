@@ -0,0 +1,175 @@
+package com.ddairways.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Zip written record by record from entries compressed beforehand, so entries
+// can be deflated on other threads and copied in as they are; ZipOutputStream
+// only takes uncompressed data and deflates it on the writing thread. Plain zip
+// without zip64: at most MAX_ENTRIES entries and MAX_SIZE bytes, the caller
+// rolls over to another archive before an entry would pass either.
+class ZipArchive implements Closeable {
+    static final int MAX_ENTRIES = 0xffff;
+    static final long MAX_SIZE = 0xffffffffL;
+    private static final int LOCAL_HEADER = 30;
+    private static final int CENTRAL_HEADER = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY = 22;
+    // names are UTF-8
+    private static final int FLAGS = 0x0800;
+    private static final int VERSION = 20;
+    // 1980-01-01 00:00 as an MS-DOS date, identical content gives identical archives
+    private static final int DOS_DATE = (1 << 5) | 1;
+    private static final int DOS_TIME = 0;
+
+    private final OutputStream out;
+    // central directory records, written at the end
+    private final ByteArrayOutputStream directory = new ByteArrayOutputStream(4096);
+    private long size;
+    private int entries;
+
+    ZipArchive(OutputStream out) {
+        this.out = out;
+    }
+
+    // Compressed data of an entry with what the headers record about it.
+    static final class Entry {
+        private final byte[] name;
+        private final int method;
+        private final long crc;
+        private final int size;
+        private final byte[] data;
+
+        private Entry(String name, int method, long crc, int size, byte[] data) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+        }
+
+        // bytes the entry adds to the archive, central directory record included
+        long archivedSize() {
+            return LOCAL_HEADER + CENTRAL_HEADER + 2L * name.length + data.length;
+        }
+    }
+
+    // for content compressed already (PDFs, zips)
+    static Entry stored(String name, byte[] content) {
+        return new Entry(name, 0, crc(content), content.length, content);
+    }
+
+    // stored instead when deflating does not make it smaller
+    static Entry deflated(String name, byte[] content) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            final ByteArrayOutputStream deflated = new ByteArrayOutputStream(content.length / 2 + 64);
+            final byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                deflated.write(chunk, 0, deflater.deflate(chunk));
+            }
+            if (deflated.size() >= content.length) {
+                return stored(name, content);
+            }
+            return new Entry(name, Deflater.DEFLATED, crc(content), content.length, deflated.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long crc(byte[] content) {
+        final CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        return crc.getValue();
+    }
+
+    int entries() {
+        return entries;
+    }
+
+    // size of the archive when closed after the entries written so far
+    long size() {
+        return size + directory.size() + END_OF_CENTRAL_DIRECTORY;
+    }
+
+    void write(Entry entry) throws IOException {
+        if (entries == MAX_ENTRIES || size() + entry.archivedSize() > MAX_SIZE) {
+            throw new IOException("Zip archive full, no room for another " + entry.archivedSize() + " bytes");
+        }
+        final long offset = size;
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(LOCAL_HEADER + entry.name.length);
+        int32(header, 0x04034b50);
+        int16(header, VERSION);
+        fields(header, entry);
+        int16(header, 0);
+        header.write(entry.name);
+        header.writeTo(out);
+        out.write(entry.data);
+        size += header.size() + entry.data.length;
+
+        int32(directory, 0x02014b50);
+        int16(directory, VERSION);
+        int16(directory, VERSION);
+        fields(directory, entry);
+        // extra field, comment, disk, internal and external attributes
+        int16(directory, 0);
+        int16(directory, 0);
+        int16(directory, 0);
+        int16(directory, 0);
+        int32(directory, 0);
+        int32(directory, offset);
+        directory.write(entry.name);
+        entries++;
+    }
+
+    // from the flags to the name length, the same in both headers
+    private static void fields(ByteArrayOutputStream header, Entry entry) {
+        int16(header, FLAGS);
+        int16(header, entry.method);
+        int16(header, DOS_TIME);
+        int16(header, DOS_DATE);
+        int32(header, entry.crc);
+        int32(header, entry.data.length);
+        int32(header, entry.size);
+        int16(header, entry.name.length);
+    }
+
+    // Writes the central directory and closes the destination.
+    @Override
+    public void close() throws IOException {
+        try {
+            final long offset = size;
+            directory.writeTo(out);
+            final ByteArrayOutputStream end = new ByteArrayOutputStream(END_OF_CENTRAL_DIRECTORY);
+            int32(end, 0x06054b50);
+            // single disk
+            int16(end, 0);
+            int16(end, 0);
+            int16(end, entries);
+            int16(end, entries);
+            int32(end, directory.size());
+            int32(end, offset);
+            // comment
+            int16(end, 0);
+            end.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void int16(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private static void int32(ByteArrayOutputStream out, long value) {
+        int16(out, (int) value);
+        int16(out, (int) (value >> 16));
+    }
+}
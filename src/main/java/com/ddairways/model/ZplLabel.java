@@ -0,0 +1,101 @@
+package com.ddairways.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// A ZPL II print job for Zebra-compatible boarding pass printers, which print
+// text, lines and PDF417 barcodes themselves instead of a rasterized PDF.
+// Positions are in PDF points from the bottom left, as in the PDF layouts,
+// and converted to printer dots from the top left.
+class ZplLabel implements PassCanvas {
+    static final int DPI = 203;
+    // PDF417 security level, as ZXing encodes the PDF barcodes
+    private static final int SECURITY_LEVEL = 2;
+
+    private final StringBuilder zpl = new StringBuilder(2048);
+    private final float height;
+
+    ZplLabel(float width, float height) {
+        this.height = height;
+        // UTF-8 field data, label size, origin top left
+        zpl.append("^XA^CI28^PW").append(dots(width)).append("^LL").append(dots(height)).append("^LH0,0\n");
+    }
+
+    static int dots(float points) {
+        return Math.round(points * DPI / 72);
+    }
+
+    // in the printer's scalable font
+    @Override
+    public ZplLabel text(float x, float y, float size, String text) {
+        zpl.append("^FT").append(dots(x)).append(',').append(dots(height - y))
+                .append("^A0N,").append(dots(size)).append(",0");
+        return field(text);
+    }
+
+    @Override
+    public ZplLabel dashedLine(float x, float y, float dash) {
+        final int left = dots(x);
+        final int length = dots(dash);
+        for (int top = dots(height - y); top < dots(height); top += 2 * length) {
+            zpl.append("^FO").append(left).append(',').append(top)
+                    .append("^GB1,").append(length).append(",1^FS\n");
+        }
+        return this;
+    }
+
+    // encoded by the printer, filling at most the given area
+    @Override
+    public ZplLabel pdf417(float x, float y, float width, float height, String data) {
+        // widest modules still leaving 8 data columns, each column is 17 modules
+        // wide and start, stop and row indicators take another 69; modules of a
+        // single dot are too narrow for gate scanners
+        int module = 3;
+        while (module > 2 && columns(width, module) < 8) {
+            module--;
+        }
+        final int columns = columns(width, module);
+        if (columns < 1) {
+            throw new IllegalArgumentException("No room for a PDF417 barcode " + width + " points wide");
+        }
+        // at most a codeword per char, plus the length and error correction
+        // codewords: rows are high enough to fill the height even then
+        final int codewords = data.length() + 1 + (2 << SECURITY_LEVEL);
+        final int rows = Math.max(3, (codewords + columns - 1) / columns);
+        final int rowHeight = Math.max(3 * module, Math.min(5 * module, dots(height) / rows));
+        zpl.append("^FO").append(dots(x)).append(',').append(dots(this.height - y))
+                .append("^BY").append(module)
+                // ^B7o,h,s,c,r,t: rows left to the printer, fitted to the data, not truncated
+                .append("^B7N,").append(rowHeight).append(',').append(SECURITY_LEVEL).append(',').append(columns).append(",,N");
+        return field(data);
+    }
+
+    private static int columns(float width, int module) {
+        return (dots(width) / module - 69) / 17;
+    }
+
+    // ^FH makes _ the escape for hex bytes, so data can hold ^ and ~
+    private ZplLabel field(String data) {
+        zpl.append("^FH^FD");
+        for (int i = 0; i < data.length(); i++) {
+            final char c = data.charAt(i);
+            if (c == '_' || c == '^' || c == '~') {
+                zpl.append('_').append(Integer.toHexString(c).toUpperCase());
+            } else {
+                zpl.append(c);
+            }
+        }
+        zpl.append("^FS\n");
+        return this;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return zpl + "^XZ\n";
+    }
+}
@@ -0,0 +1,112 @@
+package com.ddairways.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AllocationBudgetTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    private final AllocationAccounting accounting = AllocationAccounting.getInstance();
+
+    @Before
+    public void enable() {
+        accounting.enable();
+        accounting.reset();
+    }
+
+    @After
+    public void disable() {
+        accounting.disable();
+        accounting.clearBudgets();
+        accounting.reset();
+    }
+
+    @Test
+    public void measuresAllocationsPerArtifactType() throws Exception {
+        boardingPass.render(BoardingPass.Channel.DESKTOP);
+        final Map<BoardingPass.Type, AllocationAccounting.Usage> usage = accounting.snapshot();
+        for (BoardingPass.Type type : new BoardingPass.Type[]{BoardingPass.Type.ELECTRONIC, BoardingPass.Type.MOBILE, BoardingPass.Type.CALENDAR_EVENT}) {
+            assertEquals(1, usage.get(type).getRenders());
+            assertTrue(type + " allocated nothing", usage.get(type).getMaxBytes() > 0);
+        }
+        assertEquals(0, usage.get(BoardingPass.Type.KIOSK).getRenders());
+        assertTrue(accounting.report().startsWith("MOBILE "));
+    }
+
+    @Test
+    public void renderOverBudgetFails() throws Exception {
+        accounting.setBudget(BoardingPass.Type.KIOSK, 1);
+        try {
+            boardingPass.render(BoardingPass.Channel.KIOSK);
+            fail("KIOSK render should exceed a one byte budget");
+        } catch (AllocationBudgetExceededException e) {
+            assertEquals(BoardingPass.Type.KIOSK, e.getType());
+            assertTrue(e.getAllocatedBytes() > e.getBudgetBytes());
+        }
+        assertEquals(1, accounting.snapshot().get(BoardingPass.Type.KIOSK).getExceeded());
+    }
+
+    @Test
+    public void renderOverBudgetWritesNothing() throws Exception {
+        accounting.setBudget(BoardingPass.Type.KIOSK, 1);
+        final Map<BoardingPass.Type, ByteArrayOutputStream> streams = new EnumMap<>(BoardingPass.Type.class);
+        streams.put(BoardingPass.Type.KIOSK, new ByteArrayOutputStream());
+        try {
+            boardingPass.render(BoardingPass.Channel.KIOSK, ArtifactSink.toStreams(streams));
+            fail("KIOSK render should exceed a one byte budget");
+        } catch (AllocationBudgetExceededException e) {
+            assertEquals(0, streams.get(BoardingPass.Type.KIOSK).size());
+        }
+    }
+
+    @Test
+    public void failedRendersAreMeasuredToo() throws Exception {
+        // too long for an Aztec barcode
+        final char[] name = new char[4000];
+        Arrays.fill(name, 'F');
+        final BoardingPass tooLong = new BoardingPass(flight, new Passenger(new String(name), "Last", "first.last@company.com", "Economy"), "A1B2C3", "10D", "0018", "45C");
+        accounting.setBudget(BoardingPass.Type.MOBILE, 1);
+        try {
+            tooLong.render(BoardingPass.Channel.MOBILE);
+            fail("Rendered a pass whose barcode cannot be encoded");
+        } catch (AllocationBudgetExceededException e) {
+            fail("Failed render reported as over its budget");
+        } catch (Exception e) {
+            // the render's own failure
+        }
+        final AllocationAccounting.Usage usage = accounting.snapshot().get(BoardingPass.Type.MOBILE);
+        assertEquals(1, usage.getRenders());
+        assertEquals(0, usage.getExceeded());
+    }
+
+    // Regression guard, budgets are several times what a warm render allocates
+    // (about 0.25 MB mobile, 0.6 MB electronic and 0.33 MB for the calendar event).
+    @Test
+    public void rendersStayWithinTheirBudgets() throws Exception {
+        for (BoardingPass.Channel channel : BoardingPass.Channel.values()) {
+            boardingPass.render(channel);
+        }
+        accounting.setBudget(BoardingPass.Type.KIOSK, 2L << 20);
+        accounting.setBudget(BoardingPass.Type.ELECTRONIC, 2L << 20);
+        accounting.setBudget(BoardingPass.Type.MOBILE, 2L << 20);
+        accounting.setBudget(BoardingPass.Type.CALENDAR_EVENT, 2L << 20);
+        for (BoardingPass.Channel channel : BoardingPass.Channel.values()) {
+            boardingPass.render(channel);
+        }
+    }
+}
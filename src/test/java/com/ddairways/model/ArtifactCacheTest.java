@@ -0,0 +1,211 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArtifactCacheTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void unchangedPassComesFromMemory() throws Exception {
+        final ArtifactCache cache = new ArtifactCache(1 << 20);
+        final List<byte[]> first = cache.render(boardingPass, BoardingPass.Channel.MOBILE);
+        final List<byte[]> second = cache.render(new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C"), BoardingPass.Channel.MOBILE);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, second.size());
+        assertArrayEquals(first.get(0), second.get(0));
+        assertArrayEquals(first.get(1), second.get(1));
+    }
+
+    @Test
+    public void changedGateOrSeatIsRenderedAgain() throws Exception {
+        final ArtifactCache cache = new ArtifactCache(1 << 20);
+        cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+        final List<byte[]> newGate = cache.render(new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "46A"), BoardingPass.Channel.KIOSK);
+        final List<byte[]> newSeat = cache.render(new BoardingPass(flight, passenger, "A1B2C3", "11F", "0018", "45C"), BoardingPass.Channel.KIOSK);
+        assertEquals(3, cache.getMisses());
+        assertTrue(text(newGate.get(0)).contains("GATE: 46A"));
+        assertTrue(text(newSeat.get(0)).contains("SEAT: 11F"));
+    }
+
+    @Test
+    public void renderOptionsArePartOfTheKey() throws Exception {
+        final ArtifactCache cache = new ArtifactCache(1 << 20);
+        cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+        cache.render(boardingPass, BoardingPass.Channel.KIOSK, RenderOptions.DEFAULT.barcodeStyle(BarcodeStyle.CCITT));
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPassesBeyondTheByteBound() throws Exception {
+        final long kioskPass = boardingPass.render(BoardingPass.Channel.KIOSK).get(0).length;
+        final ArtifactCache cache = new ArtifactCache(kioskPass + kioskPass / 2);
+        final BoardingPass another = new BoardingPass(flight, passenger, "Z9Y8X7", "2A", "0001", "12");
+        cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+        cache.render(another, BoardingPass.Channel.KIOSK);
+        assertEquals(1, cache.size());
+        assertTrue(cache.sizeInBytes() <= kioskPass + kioskPass / 2);
+        cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void diskTierServesAnotherCacheInstance() throws Exception {
+        final Path directory = Files.createTempDirectory("artifact-cache");
+        try {
+            final List<byte[]> rendered = new ArtifactCache(1 << 20, directory).render(boardingPass, BoardingPass.Channel.DESKTOP);
+            final ArtifactCache restarted = new ArtifactCache(1 << 20, directory);
+            final List<byte[]> fromDisk = restarted.render(boardingPass, BoardingPass.Channel.DESKTOP);
+            assertEquals(1, restarted.getDiskHits());
+            assertEquals(0, restarted.getMisses());
+            assertArrayEquals(rendered.get(0), fromDisk.get(0));
+            assertArrayEquals(rendered.get(1), fromDisk.get(1));
+            restarted.render(boardingPass, BoardingPass.Channel.DESKTOP);
+            assertEquals(1, restarted.getHits());
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void diskTierEvictsLeastRecentlyUsedFilesBeyondItsBound() throws Exception {
+        final Path directory = Files.createTempDirectory("artifact-cache");
+        try {
+            final long kioskPass = boardingPass.render(BoardingPass.Channel.KIOSK).get(0).length;
+            final long bound = kioskPass * 5 / 2;
+            final BoardingPass second = new BoardingPass(flight, passenger, "Z9Y8X7", "2A", "0001", "12");
+            final BoardingPass third = new BoardingPass(flight, passenger, "Q1W2E3", "3B", "0002", "14");
+            final ArtifactCache cache = new ArtifactCache(1 << 20, directory, bound);
+            cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+            age(directory, 2);
+            cache.render(second, BoardingPass.Channel.KIOSK);
+            age(directory, 1);
+            cache.render(third, BoardingPass.Channel.KIOSK);
+
+            assertTrue(cache.sizeOnDisk() <= bound);
+            assertEquals(cache.sizeOnDisk(), sizeOf(directory));
+            final ArtifactCache restarted = new ArtifactCache(1 << 20, directory, bound);
+            restarted.render(third, BoardingPass.Channel.KIOSK);
+            assertEquals(1, restarted.getDiskHits());
+            restarted.render(boardingPass, BoardingPass.Channel.KIOSK);
+            assertEquals(1, restarted.getMisses());
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void corruptDiskEntryIsRenderedAgain() throws Exception {
+        final Path directory = Files.createTempDirectory("artifact-cache");
+        try {
+            final List<byte[]> rendered = new ArtifactCache(1 << 20, directory).render(boardingPass, BoardingPass.Channel.KIOSK);
+            final File entry = directory.toFile().listFiles()[0];
+            // cut short, as by a crash or a full disk
+            Files.write(entry.toPath(), Arrays.copyOf(Files.readAllBytes(entry.toPath()), 100));
+
+            final ArtifactCache restarted = new ArtifactCache(1 << 20, directory);
+            assertEquals(rendered.get(0).length, restarted.render(boardingPass, BoardingPass.Channel.KIOSK).get(0).length);
+            assertEquals(1, restarted.getMisses());
+            assertEquals(0, restarted.getDiskHits());
+            final ArtifactCache again = new ArtifactCache(1 << 20, directory);
+            again.render(boardingPass, BoardingPass.Channel.KIOSK);
+            assertEquals(1, again.getDiskHits());
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void unwritableDiskTierStillServesRenders() throws Exception {
+        // a regular file where the directory should be, no entry can be written under it
+        final Path directory = Files.createTempFile("artifact-cache", ".file");
+        try {
+            final ArtifactCache cache = new ArtifactCache(1 << 20, directory);
+            final List<byte[]> rendered = cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+            assertTrue(text(rendered.get(0)).contains("GATE: 45C"));
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getDiskErrors());
+            assertTrue(Files.isRegularFile(directory));
+            assertArrayEquals(rendered.get(0), cache.render(boardingPass, BoardingPass.Channel.KIOSK).get(0));
+            assertEquals(1, cache.getHits());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void invalidatedPassIsRenderedAgain() throws Exception {
+        final Path directory = Files.createTempDirectory("artifact-cache");
+        try {
+            final ArtifactCache cache = new ArtifactCache(1 << 20, directory);
+            cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+            cache.render(boardingPass, BoardingPass.Channel.MOBILE);
+            cache.invalidate(boardingPass, BoardingPass.Channel.KIOSK);
+            assertEquals(1, cache.size());
+            assertEquals(1, directory.toFile().listFiles().length);
+            cache.render(boardingPass, BoardingPass.Channel.KIOSK);
+            assertEquals(3, cache.getMisses());
+            cache.invalidateAll();
+            assertEquals(0, cache.size());
+            assertEquals(0, directory.toFile().listFiles().length);
+        } finally {
+            for (File file : directory.toFile().listFiles()) {
+                file.delete();
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void callersCannotCorruptTheCachedArtifacts() throws Exception {
+        final ArtifactCache cache = new ArtifactCache(1 << 20);
+        final byte[] original = cache.render(boardingPass, BoardingPass.Channel.KIOSK).get(0);
+        final byte[] copy = original.clone();
+        original[0] = 0;
+        assertArrayEquals(copy, cache.render(boardingPass, BoardingPass.Channel.KIOSK).get(0));
+    }
+
+    // makes every entry file in the directory look used that many hours earlier
+    private static void age(Path directory, int hours) throws Exception {
+        for (File file : directory.toFile().listFiles()) {
+            file.setLastModified(file.lastModified() - hours * 3600_000L);
+        }
+    }
+
+    private static long sizeOf(Path directory) {
+        long size = 0;
+        for (File file : directory.toFile().listFiles()) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static String text(byte[] pdf) throws Exception {
+        return PdfTextExtractor.getTextFromPage(new PdfReader(pdf), 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ddairways.model;
+
+import com.google.zxing.BarcodeFormat;
+import com.itextpdf.text.Image;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BarcodeImageCacheTest {
+    private static final String barcodeText = "9W46501-Jan-2020BOM10:00MAA12:0010D0018First Last";
+
+    @Test
+    public void secondRequestForSameBarcodeIsAHit() throws Exception {
+        final BarcodeImageCache cache = new BarcodeImageCache(10);
+        final Image first = cache.get(barcodeText, BarcodeFormat.AZTEC, 135, 135);
+        final Image second = cache.get(barcodeText, BarcodeFormat.AZTEC, 135, 135);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertNotSame("every caller gets its own copy", first, second);
+        assertEquals(first.getMySerialId(), second.getMySerialId());
+    }
+
+    @Test
+    public void keyIncludesSymbologyAndDimensions() throws Exception {
+        final BarcodeImageCache cache = new BarcodeImageCache(10);
+        cache.get(barcodeText, BarcodeFormat.PDF_417, 40, 15);
+        cache.get(barcodeText, BarcodeFormat.PDF_417, 400, 80);
+        cache.get(barcodeText, BarcodeFormat.AZTEC, 135, 135);
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBarcodeBeyondCapacity() throws Exception {
+        final BarcodeImageCache cache = new BarcodeImageCache(2);
+        cache.get("first", BarcodeFormat.AZTEC, 135, 135);
+        cache.get("second", BarcodeFormat.AZTEC, 135, 135);
+        cache.get("first", BarcodeFormat.AZTEC, 135, 135);
+        cache.get("third", BarcodeFormat.AZTEC, 135, 135);
+        assertEquals(2, cache.size());
+        cache.get("first", BarcodeFormat.AZTEC, 135, 135);
+        assertEquals(2, cache.getHits());
+        cache.get("second", BarcodeFormat.AZTEC, 135, 135);
+        assertEquals(4, cache.getMisses());
+    }
+}
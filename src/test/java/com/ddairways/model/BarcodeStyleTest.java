@@ -0,0 +1,122 @@
+package com.ddairways.model;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BarcodeStyleTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void vectorRectanglesCoverExactlyTheBlackModules() throws Exception {
+        assertCovers(new MultiFormatWriter().encode("M1LAST/FIRST          EA1B2C3 BOMMAA9W 0465 034Y010D0018 10445C ", BarcodeFormat.PDF_417, 400, 80));
+        assertCovers(new MultiFormatWriter().encode("9W465 BOM MAA A1B2C3 10D 0018", BarcodeFormat.AZTEC, 135, 135));
+    }
+
+    @Test
+    public void ccittBarcodesScanLikeTheJpegOnes() throws Exception {
+        for (BoardingPass.Channel channel : new BoardingPass.Channel[]{BoardingPass.Channel.KIOSK, BoardingPass.Channel.DESKTOP, BoardingPass.Channel.MOBILE}) {
+            final byte[] jpeg = boardingPass.render(channel).get(0);
+            final byte[] ccitt = boardingPass.render(channel, RenderOptions.DEFAULT.barcodeStyle(BarcodeStyle.CCITT)).get(0);
+            assertEquals(text(jpeg), text(ccitt));
+            final List<ImageRenderInfo> jpegImages = images(jpeg);
+            final List<ImageRenderInfo> ccittImages = images(ccitt);
+            assertEquals(jpegImages.size(), ccittImages.size());
+            for (int i = 0; i < jpegImages.size(); i++) {
+                assertEquals(jpegImages.get(i).getImageCTM().toString(), ccittImages.get(i).getImageCTM().toString());
+                assertEquals(decode(jpegImages.get(i)), decode(ccittImages.get(i)));
+            }
+            assertTrue(channel + " pass should shrink", ccitt.length < jpeg.length);
+        }
+    }
+
+    @Test
+    public void vectorBarcodesAreDrawnWithoutImages() throws Exception {
+        for (BoardingPass.Channel channel : new BoardingPass.Channel[]{BoardingPass.Channel.KIOSK, BoardingPass.Channel.DESKTOP, BoardingPass.Channel.MOBILE}) {
+            final byte[] jpeg = boardingPass.render(channel).get(0);
+            final byte[] vector = boardingPass.render(channel, RenderOptions.DEFAULT.barcodeStyle(BarcodeStyle.VECTOR)).get(0);
+            assertEquals(text(jpeg), text(vector));
+            assertFalse(images(jpeg).isEmpty());
+            assertTrue(images(vector).isEmpty());
+            assertTrue(channel + " pass should shrink", vector.length < jpeg.length);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void vectorBarcodeNeedsAWriter() throws Exception {
+        BarcodeImageCache.getInstance().get("text", BarcodeFormat.PDF_417, 40, 15, BarcodeStyle.VECTOR, null);
+    }
+
+    private static void assertCovers(BitMatrix matrix) {
+        final BitMatrix drawn = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+        final int[] rectangles = BarcodeImageCache.rectangles(matrix);
+        for (int i = 0; i < rectangles.length; i += 4) {
+            for (int y = rectangles[i + 1]; y < rectangles[i + 1] + rectangles[i + 3]; y++) {
+                for (int x = rectangles[i]; x < rectangles[i] + rectangles[i + 2]; x++) {
+                    assertFalse("overlapping rectangles", drawn.get(x, y));
+                    drawn.set(x, y);
+                }
+            }
+        }
+        assertEquals(matrix, drawn);
+        // merging keeps far fewer rectangles than there are black modules
+        assertTrue(rectangles.length / 4 * 4 < cardinality(matrix));
+    }
+
+    private static int cardinality(BitMatrix matrix) {
+        int count = 0;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if (matrix.get(x, y)) count++;
+            }
+        }
+        return count;
+    }
+
+    private static String text(byte[] pdf) throws Exception {
+        return PdfTextExtractor.getTextFromPage(new PdfReader(pdf), 1);
+    }
+
+    private static String decode(ImageRenderInfo image) throws Exception {
+        final BufferedImageLuminanceSource source = new BufferedImageLuminanceSource(image.getImage().getBufferedImage());
+        return new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source))).getText();
+    }
+
+    private static List<ImageRenderInfo> images(byte[] pdf) throws Exception {
+        final List<ImageRenderInfo> images = new ArrayList<>();
+        new PdfReaderContentParser(new PdfReader(pdf)).processContent(1, new RenderListener() {
+            public void beginTextBlock() {
+            }
+
+            public void renderText(TextRenderInfo renderInfo) {
+            }
+
+            public void endTextBlock() {
+            }
+
+            public void renderImage(ImageRenderInfo renderInfo) {
+                images.add(renderInfo);
+            }
+        });
+        return images;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BatchRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final String pnr = "A1B2C3";
+
+    private static List<BoardingPass> manifest(int passengers) {
+        List<BoardingPass> manifest = new ArrayList<>();
+        for (int i = 1; i <= passengers; i++) {
+            final Passenger passenger = new Passenger("First" + i, "Last" + i, "first.last" + i + "@company.com", "Economy");
+            manifest.add(new BoardingPass(flight, passenger, pnr, i + "A", String.format("%04d", i)));
+        }
+        return manifest;
+    }
+
+    @Test
+    public void rendersEveryPassengerInManifestOrder() {
+        final List<BoardingPass> manifest = manifest(12);
+        final List<RenderResult> results = BoardingPass.render(manifest, BoardingPass.Channel.DESKTOP);
+        assertEquals(manifest.size(), results.size());
+        for (int i = 0; i < manifest.size(); i++) {
+            assertSame(manifest.get(i), results.get(i).getBoardingPass());
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(2, results.get(i).getArtifacts().size());
+        }
+    }
+
+    @Test
+    public void onePassengersFailureDoesNotAbortTheBatch() throws Exception {
+        final List<BoardingPass> manifest = manifest(5);
+        final Passenger invalidEmail = new Passenger("Bad", "Email", "bad email@company.com", "Economy");
+        manifest.add(2, new BoardingPass(flight, invalidEmail, pnr, "3C", "0099"));
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<RenderResult> results = BoardingPass.render(manifest, BoardingPass.Channel.MOBILE, executor);
+            assertEquals(6, results.size());
+            assertFalse(results.get(2).isSuccess());
+            assertTrue(results.get(2).getFailure() instanceof URISyntaxException);
+            for (int i = 0; i < results.size(); i++) {
+                if (i != 2) {
+                    assertTrue(results.get(i).isSuccess());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ddairways.model;
+
+import com.ddairways.model.BcbpPayload.Field;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class BcbpPayloadTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai", "Asia/Kolkata");
+    private static final Airport chennai = new Airport("MAA", "Chennai", "Asia/Kolkata");
+    private static final DateTime departure = new DateTime(2020, 2, 3, 10, 0, DateTimeZone.forID("Asia/Kolkata"));
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void encodesFixedWidthPayload() {
+        final byte[] buffer = new byte[BcbpPayload.LENGTH];
+        assertEquals(BcbpPayload.LENGTH, BcbpEncoder.encode(boardingPass, buffer, 0));
+        assertEquals("M1LAST/FIRST          EA1B2C3 BOMMAA9W 0465 034Y010D0018 10445C ",
+                new String(buffer, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void decodesTypedFieldsBackFromScannedBytes() {
+        final byte[] scanned = new byte[BcbpPayload.LENGTH + 8];
+        BcbpEncoder.encode(boardingPass, scanned, 8);
+        final BcbpPayload payload = new BcbpPayload().wrap(scanned, 8, BcbpPayload.LENGTH);
+
+        assertEquals("LAST/FIRST", payload.get(Field.PASSENGER_NAME));
+        assertEquals("A1B2C3", payload.get(Field.PNR));
+        assertTrue(payload.matches(Field.FROM_AIRPORT, "BOM"));
+        assertTrue(payload.matches(Field.TO_AIRPORT, "MAA"));
+        assertTrue(payload.matches(Field.CARRIER, "9W"));
+        assertFalse(payload.matches(Field.GATE, "45"));
+        assertTrue(payload.matches(Field.GATE, "45C"));
+        assertEquals(465, payload.getFlightNumber());
+        assertEquals(' ', payload.getFlightNumberSuffix());
+        assertEquals(34, payload.getJulianDate());
+        assertEquals('Y', payload.getCompartment());
+        assertEquals(10, payload.getSeatRow());
+        assertEquals('D', payload.getSeatLetter());
+        assertEquals(18, payload.getSequenceNumber());
+        assertEquals('1', payload.getPassengerStatus());
+    }
+
+    @Test
+    public void reusesBufferAndViewAcrossPasses() {
+        final byte[] buffer = new byte[BcbpPayload.LENGTH];
+        final BcbpPayload payload = new BcbpPayload();
+        BcbpEncoder.encode(boardingPass, buffer, 0);
+        assertEquals(18, payload.wrap(buffer).getSequenceNumber());
+
+        final Passenger business = new Passenger("Another", "Passenger", "another@company.com", "Business");
+        BcbpEncoder.encode(new BoardingPass(flight, business, "Z9Y8X7", "2A", "0001"), buffer, 0);
+        assertSame(payload, payload.wrap(buffer));
+        assertEquals(1, payload.getSequenceNumber());
+        assertEquals('J', payload.getCompartment());
+        assertEquals("PASSENGER/ANOTHER", payload.get(Field.PASSENGER_NAME));
+        assertEquals("", payload.get(Field.GATE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBytesThatAreNotABoardingPass() {
+        new BcbpPayload().wrap("9W46503-Feb-2020BOM10:00MAA12:0010D0018First Last".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSeatsThatDoNotFitTheField() {
+        BcbpEncoder.encode(new BoardingPass(flight, passenger, "A1B2C3", "12AB", "0018", "45C"), new byte[BcbpPayload.LENGTH], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPnrsThatDoNotFitTheField() {
+        BcbpEncoder.encode(new BoardingPass(flight, passenger, "A1B2C3D4", "10D", "0018", "45C"), new byte[BcbpPayload.LENGTH], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAirportCodesThatDoNotFitTheField() {
+        final Flight fromFourLetterCode = new Flight("9W", "465", new Airport("VABB", "Mumbai", "Asia/Kolkata"), chennai, departure.toDate(), 2);
+        BcbpEncoder.encode(new BoardingPass(fromFourLetterCode, passenger, "A1B2C3", "10D", "0018", "45C"), new byte[BcbpPayload.LENGTH], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCarriersThatDoNotFitTheField() {
+        final Flight ofFourLetterCarrier = new Flight("9WXY", "465", mumbai, chennai, departure.toDate(), 2);
+        BcbpEncoder.encode(new BoardingPass(ofFourLetterCarrier, passenger, "A1B2C3", "10D", "0018", "45C"), new byte[BcbpPayload.LENGTH], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsGatesThatDoNotFitTheField() {
+        BcbpEncoder.encode(new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C12"), new byte[BcbpPayload.LENGTH], 0);
+    }
+
+    @Test
+    public void truncatesLongNamesToTheField() {
+        final Passenger longNamed = new Passenger("Firstname", "Lastnamethatgoesonandon", "first.last@company.com", "Economy");
+        final byte[] buffer = new byte[BcbpPayload.LENGTH];
+        BcbpEncoder.encode(new BoardingPass(flight, longNamed, "A1B2C3", "10D", "0018", "45C"), buffer, 0);
+        assertEquals("LASTNAMETHATGOESONAN", new String(buffer, Field.PASSENGER_NAME.offset, Field.PASSENGER_NAME.length, StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPayloadsPastTheEndOfTheScan() {
+        final byte[] scanned = new byte[BcbpPayload.LENGTH + 8];
+        BcbpEncoder.encode(boardingPass, scanned, 8);
+        new BcbpPayload().wrap(scanned, 8, BcbpPayload.LENGTH + 8);
+    }
+}
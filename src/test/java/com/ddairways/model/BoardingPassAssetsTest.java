@@ -0,0 +1,46 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardingPassAssetsTest {
+
+    @Test
+    public void assetsAreLoadedOnceAndShared() {
+        assertSame(BoardingPassAssets.get(), BoardingPassAssets.get());
+        assertSame(BoardingPassAssets.get().helvetica(), BoardingPassAssets.get().helvetica());
+    }
+
+    @Test
+    public void instructionsAreReadCompletely() {
+        final String instructions = BoardingPassAssets.get().instructionsText();
+        assertTrue(instructions.startsWith("1. For International flights"));
+        assertTrue(instructions.contains("8. While the boarding gates close"));
+    }
+
+    @Test
+    public void headersComeFromResources() {
+        assertEquals("DD Airways Kiosk Check-In", BoardingPassAssets.get().header("kiosk.passenger.copy.header"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownHeaderIsRejected() {
+        BoardingPassAssets.get().header("no.such.header");
+    }
+
+    @Test
+    public void unchangedResourcesAreNotReloaded() {
+        final BoardingPassAssets before = BoardingPassAssets.get();
+        assertFalse(BoardingPassAssets.reloadIfModified());
+        assertSame(before, BoardingPassAssets.get());
+    }
+
+    @Test
+    public void reloadSwapsInAFreshSet() {
+        final BoardingPassAssets before = BoardingPassAssets.get();
+        BoardingPassAssets.reload();
+        assertNotSame(before, BoardingPassAssets.get());
+        assertEquals(before.instructionsText(), BoardingPassAssets.get().instructionsText());
+    }
+}
@@ -0,0 +1,94 @@
+package com.ddairways.model;
+
+import net.fortuna.ical4j.data.CalendarOutputter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.ParameterList;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.parameter.Encoding;
+import net.fortuna.ical4j.model.parameter.FmtType;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.Attach;
+import net.fortuna.ical4j.model.property.Description;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Uid;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CalendarEngineTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai", "Asia/Kolkata");
+    private static final Airport london = new Airport("LHR", "London", "Europe/London");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "118", mumbai, london, departure.toDate(), 10);
+    private final CalendarEngine engine = CalendarEngine.getInstance();
+
+    @Test
+    public void resolvesTimeZoneOfTheAirport() {
+        assertEquals("Asia/Kolkata", engine.timeZoneOf(mumbai).getTimeZoneId().getValue());
+        assertEquals("Europe/London", engine.timeZoneOf(london).getTimeZoneId().getValue());
+    }
+
+    @Test
+    public void resolvesEachTimeZoneOnlyOnce() {
+        engine.preload(Arrays.asList(mumbai, london));
+        final VTimeZone first = engine.timeZoneOf(london);
+        assertSame(first, engine.timeZoneOf(new Airport("LGW", "London", "Europe/London")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownTimeZone() {
+        engine.timeZoneOf(new Airport("XXX", "Nowhere", "Nowhere/Unknown"));
+    }
+
+    @Test
+    public void uidIsDerivedFromTheBooking() {
+        final Uid uid = engine.uidFor(flight, "A1B2C3", "0018");
+        assertEquals(uid, engine.uidFor(flight, "A1B2C3", "0018"));
+        assertNotEquals(uid, engine.uidFor(flight, "A1B2C3", "0019"));
+        assertTrue(uid.getValue().startsWith("A1B2C3-0018-9W118-"));
+    }
+
+    @Test
+    public void writesAttachmentsLikeTheOutputter() throws Exception {
+        // every base64 padding, attachments shorter and longer than a folded line
+        for (int length : new int[]{0, 1, 2, 3, 40, 1000, 20001}) {
+            final byte[] attachment = new byte[length];
+            new Random(length).nextBytes(attachment);
+            final VEvent event = new VEvent(new DateTime(departure.toDate()), "Flight to London (9W118)");
+            event.getProperties().add(new Description("Mumbai \u2708 London"));
+            final Calendar calendar = new Calendar();
+            calendar.getProperties().add(new ProdId("-//Events Calendar//iCal4j 1.0//EN"));
+            calendar.getComponents().add(event);
+            final ParameterList params = new ParameterList();
+            params.add(Value.BINARY);
+            params.add(Encoding.BASE64);
+            params.add(new FmtType("Mobile Boarding Pass.pdf"));
+
+            event.getProperties().add(new Attach(params, attachment));
+
+            final ByteArrayOutputStream written = new ByteArrayOutputStream();
+            engine.write(calendar, written);
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new CalendarOutputter(false).output(calendar, expected);
+            assertArrayEquals("attachment of " + length + " bytes", expected.toByteArray(), written.toByteArray());
+        }
+    }
+
+    @Test
+    public void writesLikeTheOutputter() throws Exception {
+        final Calendar calendar = new Calendar();
+        calendar.getProperties().add(new ProdId("-//Events Calendar//iCal4j 1.0//EN"));
+        calendar.getComponents().add(new VEvent(new DateTime(departure.toDate()), "Flight to London (9W118) \u2708"));
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        engine.write(calendar, written);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new CalendarOutputter(false).output(calendar, expected);
+        assertArrayEquals(expected.toByteArray(), written.toByteArray());
+    }
+}
@@ -0,0 +1,132 @@
+package com.ddairways.model;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.Attach;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ChannelRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void mobilePassIsRenderedOnceForBothArtifacts() throws Exception {
+        final long before = RenderMetrics.getInstance().snapshot().getArtifacts(BoardingPass.Type.MOBILE).getCount();
+        boardingPass.render(BoardingPass.Channel.MOBILE);
+        final long after = RenderMetrics.getInstance().snapshot().getArtifacts(BoardingPass.Type.MOBILE).getCount();
+        assertEquals(1, after - before);
+    }
+
+    @Test
+    public void calendarEventAttachesTheReturnedMobilePass() throws Exception {
+        final List<byte[]> rendered = boardingPass.render(BoardingPass.Channel.MOBILE);
+        final Calendar calendar = new CalendarBuilder().build(new ByteArrayInputStream(rendered.get(1)));
+        final VEvent event = (VEvent) calendar.getComponents(Component.VEVENT).get(0);
+        final Attach attach = (Attach) event.getProperty(Property.ATTACH);
+        assertTrue(Arrays.equals(rendered.get(0), attach.getBinary()));
+    }
+
+    @Test
+    public void failingDependencySurfacesItsOwnException() throws Exception {
+        // too long for an Aztec barcode, the mobile pass the calendar event attaches fails
+        final char[] name = new char[4000];
+        Arrays.fill(name, 'F');
+        final BoardingPass tooLong = new BoardingPass(flight, new Passenger(new String(name), "Last", "first.last@company.com", "Economy"), "A1B2C3", "10D", "0018", "45C");
+        Exception expected = null;
+        try {
+            tooLong.createPdfMobileBoardingPass();
+        } catch (Exception e) {
+            expected = e;
+        }
+        assertNotNull(expected);
+
+        try {
+            tooLong.render(BoardingPass.Channel.MOBILE);
+            fail("Rendered a pass whose barcode cannot be encoded");
+        } catch (Exception e) {
+            assertFalse(e instanceof CompletionException);
+            assertEquals(expected.getClass(), e.getClass());
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void failedRenderReturnsOnlyOnceNothingWritesToTheSink() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            final AtomicBoolean returned = new AtomicBoolean();
+            final AtomicBoolean writtenLate = new AtomicBoolean();
+            final CountDownLatch calendarClosed = new CountDownLatch(1);
+            final ArtifactSink failingElectronic = type -> {
+                if (type == BoardingPass.Type.ELECTRONIC) {
+                    throw new IOException("No room for the " + type + " artifact");
+                }
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        writtenLate.compareAndSet(false, returned.get());
+                    }
+
+                    @Override
+                    public void close() {
+                        writtenLate.compareAndSet(false, returned.get());
+                        calendarClosed.countDown();
+                    }
+                };
+            };
+            try {
+                boardingPass.render(BoardingPass.Channel.DESKTOP, failingElectronic);
+                fail("Rendered without a destination for the electronic pass");
+            } catch (IOException e) {
+                returned.set(true);
+            }
+            assertTrue(calendarClosed.await(10, TimeUnit.SECONDS));
+            assertFalse("calendar event still written after the render failed", writtenLate.get());
+        }
+    }
+
+    @Test
+    public void failedRenderHandsNoBufferOnWhileItIsWritten() throws Exception {
+        // too long for the PDF417 barcode of the electronic pass, not for the Aztec
+        // barcode of the mobile pass, which takes a while to encode
+        final char[] name = new char[2500];
+        Arrays.fill(name, 'F');
+        final BoardingPass tooLongForPdf417 = new BoardingPass(flight, new Passenger(new String(name), "Last", "first.last@company.com", "Economy"), "A1B2C3", "10D", "0018", "45C");
+        final RenderOptions deterministic = RenderOptions.DEFAULT.deterministic(true);
+        final List<byte[]> expected = boardingPass.render(BoardingPass.Channel.DESKTOP, deterministic);
+        for (int i = 0; i < 5; i++) {
+            // empty the pool, the failed render's context is the next one handed out
+            for (int j = 0; j < 4 * Runtime.getRuntime().availableProcessors(); j++) {
+                RenderContext.acquire();
+            }
+            try {
+                tooLongForPdf417.render(BoardingPass.Channel.DESKTOP, deterministic);
+                fail("Rendered a pass whose barcode cannot be encoded");
+            } catch (Exception e) {
+                // the electronic pass fails while the mobile pass is still being encoded
+            }
+            final List<byte[]> rendered = boardingPass.render(BoardingPass.Channel.DESKTOP, deterministic);
+            for (int j = 0; j < expected.size(); j++) {
+                assertArrayEquals("artifact " + j, expected.get(j), rendered.get(j));
+            }
+        }
+    }
+}
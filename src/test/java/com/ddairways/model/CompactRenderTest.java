@@ -0,0 +1,68 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompactRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+    private static final RenderOptions compact = RenderOptions.DEFAULT.compact(true);
+
+    @Test
+    public void compactArtifactsAreSmaller() throws Exception {
+        final Map<BoardingPass.Type, Integer> regular = boardingPass.sizes(RenderOptions.DEFAULT);
+        final Map<BoardingPass.Type, Integer> small = boardingPass.sizes(compact);
+        // 1-bit barcodes alone already save most of it
+        final Map<BoardingPass.Type, Integer> ccitt = boardingPass.sizes(RenderOptions.DEFAULT.barcodeStyle(BarcodeStyle.CCITT));
+        for (BoardingPass.Type type : new BoardingPass.Type[]{BoardingPass.Type.MOBILE, BoardingPass.Type.ELECTRONIC, BoardingPass.Type.KIOSK, BoardingPass.Type.CALENDAR_EVENT}) {
+            assertTrue(type + " " + small.get(type) + " of " + regular.get(type), small.get(type) * 2 < regular.get(type));
+            assertTrue(type + " " + small.get(type) + " of " + ccitt.get(type), small.get(type) < ccitt.get(type));
+        }
+    }
+
+    @Test
+    public void compactPdfsAreValidWithoutJpegsOrMetadata() throws Exception {
+        for (BoardingPass.Channel channel : new BoardingPass.Channel[]{BoardingPass.Channel.MOBILE, BoardingPass.Channel.DESKTOP}) {
+            final byte[] pdf = boardingPass.render(channel, compact).get(0);
+            final String text = new String(pdf, StandardCharsets.ISO_8859_1);
+            assertTrue(text.startsWith("%PDF-1.5"));
+            assertTrue("object streams", text.contains("/ObjStm"));
+            assertFalse(text.contains("/DCTDecode"));
+
+            final PdfReader reader = new PdfReader(pdf);
+            assertEquals(1, reader.getNumberOfPages());
+            assertTrue(reader.getInfo().isEmpty());
+            assertTrue(PdfTextExtractor.getTextFromPage(reader, 1).contains("A1B2C3"));
+            final PdfDictionary resources = reader.getPageN(1).getAsDict(PdfName.RESOURCES);
+            assertNotNull(resources);
+        }
+    }
+
+    @Test
+    public void compactUsesOneBitBarcodes() {
+        assertEquals(BarcodeStyle.CCITT, compact.getBarcodeStyle());
+        assertEquals(BarcodeStyle.CCITT, compact.barcodeStyle(BarcodeStyle.JPEG).getBarcodeStyle());
+        assertEquals(BarcodeStyle.VECTOR, compact.barcodeStyle(BarcodeStyle.VECTOR).getBarcodeStyle());
+        assertEquals(BarcodeStyle.JPEG, compact.compact(false).getBarcodeStyle());
+        assertNotEquals(RenderOptions.DEFAULT.key(), compact.key());
+    }
+
+    @Test
+    public void compactStaysDeterministic() throws Exception {
+        final RenderOptions options = compact.deterministic(true);
+        assertArrayEquals(boardingPass.render(BoardingPass.Channel.MOBILE, options).get(0),
+                boardingPass.render(BoardingPass.Channel.MOBILE, options).get(0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeterministicRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = new org.joda.time.DateTime(2019, 3, 21, 10, 45, org.joda.time.DateTimeZone.forID("Asia/Kolkata"));
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final RenderOptions deterministic = RenderOptions.DEFAULT.deterministic(true);
+
+    @Test
+    public void identicalInputsGiveIdenticalBytes() throws Exception {
+        for (BoardingPass.Channel channel : BoardingPass.Channel.values()) {
+            final List<byte[]> first = boardingPass().render(channel, deterministic);
+            final List<byte[]> second = boardingPass().render(channel, deterministic);
+            for (int i = 0; i < first.size(); i++) {
+                assertArrayEquals(channel + " artifact " + i, first.get(i), second.get(i));
+            }
+        }
+    }
+
+    // Two renders within a second match even if the clock leaks into the output
+    // (PDF and iCalendar dates have second resolution), so no artifact may carry
+    // the day it was rendered on.
+    @Test
+    public void artifactsDoNotCarryTheTimeOfRendering() throws Exception {
+        final org.joda.time.DateTime before = org.joda.time.DateTime.now();
+        final List<List<byte[]>> rendered = new ArrayList<>();
+        for (BoardingPass.Channel channel : BoardingPass.Channel.values()) {
+            rendered.add(boardingPass().render(channel, deterministic));
+        }
+        final org.joda.time.DateTime after = org.joda.time.DateTime.now();
+        for (List<byte[]> artifacts : rendered) {
+            for (byte[] artifact : artifacts) {
+                final String text = new String(artifact, StandardCharsets.ISO_8859_1);
+                for (org.joda.time.DateTime time : new org.joda.time.DateTime[]{before, after, before.toDateTime(org.joda.time.DateTimeZone.UTC), after.toDateTime(org.joda.time.DateTimeZone.UTC)}) {
+                    assertFalse(text, text.contains(time.toString("yyyyMMdd")));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void otherRenderOptionsStayDeterministic() throws Exception {
+        final RenderOptions options = deterministic.compact(true).barcodeStyle(BarcodeStyle.VECTOR);
+        assertArrayEquals(boardingPass().render(BoardingPass.Channel.KIOSK, options).get(0),
+                boardingPass().render(BoardingPass.Channel.KIOSK, options).get(0));
+    }
+
+    @Test
+    public void differentInputsGetDifferentDocumentIds() throws Exception {
+        final byte[] pass = boardingPass().render(BoardingPass.Channel.KIOSK, deterministic).get(0);
+        final byte[] otherSeat = new BoardingPass(flight, passenger, "A1B2C3", "11F", "0018", "45C").render(BoardingPass.Channel.KIOSK, deterministic).get(0);
+        final PdfReader reader = new PdfReader(pass);
+        assertNull(reader.getInfo().get("CreationDate"));
+        assertNull(reader.getInfo().get("ModDate"));
+        final String id = reader.getTrailer().get(PdfName.ID).toString();
+        assertNotEquals(id, new PdfReader(otherSeat).getTrailer().get(PdfName.ID).toString());
+    }
+
+    @Test
+    public void calendarEventIsStampedWithTheDeparture() throws Exception {
+        final String ics = new String(boardingPass().render(BoardingPass.Channel.MOBILE, deterministic).get(1), StandardCharsets.UTF_8);
+        assertTrue(ics.contains("DTSTAMP:20190321T051500Z"));
+        assertTrue(ics.contains("UID:A1B2C3-0018-9W465-"));
+    }
+
+    @Test
+    public void defaultOutputKeepsItsDatesAndRandomIds() throws Exception {
+        final byte[] first = boardingPass().render(BoardingPass.Channel.KIOSK).get(0);
+        final byte[] second = boardingPass().render(BoardingPass.Channel.KIOSK).get(0);
+        assertFalse(java.util.Arrays.equals(first, second));
+        assertNotNull(new PdfReader(first).getInfo().get("CreationDate"));
+    }
+
+    private static BoardingPass boardingPass() {
+        return new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+    }
+}
@@ -0,0 +1,161 @@
+package com.ddairways.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+public class FlightExportTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final String pnr = "A1B2C3";
+    private static final RenderOptions deterministic = RenderOptions.DEFAULT.deterministic(true);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<BoardingPass> manifest(int passengers) {
+        List<BoardingPass> manifest = new ArrayList<>();
+        for (int i = 1; i <= passengers; i++) {
+            final Passenger passenger = new Passenger("First" + i, "Last", "first.last" + i + "@company.com", "Economy");
+            manifest.add(new BoardingPass(flight, passenger, pnr, i + "A", String.format("%04d", i), "45C"));
+        }
+        return manifest;
+    }
+
+    @Test
+    public void exportsEveryArtifactInManifestOrder() throws Exception {
+        final List<BoardingPass> manifest = manifest(20);
+        final FlightExport.Result result = FlightExport.export(manifest, BoardingPass.Channel.DESKTOP, folder.getRoot().toPath(), "9W465",
+                FlightExport.Settings.DEFAULT.options(deterministic).inFlight(3));
+        assertEquals(20, result.getExported());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(Collections.singletonList(folder.getRoot().toPath().resolve("9W465-001.zip")), result.getArchives());
+
+        try (ZipFile zip = new ZipFile(result.getArchives().get(0).toFile())) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            for (BoardingPass boardingPass : manifest) {
+                final List<byte[]> rendered = boardingPass.render(BoardingPass.Channel.DESKTOP, deterministic);
+                final ZipEntry electronic = entries.nextElement();
+                assertEquals("9W465/" + boardingPass.getSeqNo() + "-" + boardingPass.fileName(BoardingPass.Type.ELECTRONIC), electronic.getName());
+                assertArrayEquals(rendered.get(0), read(zip.getInputStream(electronic)));
+                final ZipEntry calendar = entries.nextElement();
+                assertEquals(boardingPass.fileName(BoardingPass.Type.CALENDAR_EVENT), calendar.getName().substring(calendar.getName().indexOf('-') + 1));
+                assertTrue(new String(read(zip.getInputStream(calendar)), "UTF-8").startsWith("BEGIN:VCALENDAR"));
+            }
+            assertFalse(entries.hasMoreElements());
+        }
+    }
+
+    @Test
+    public void storesPdfsAndDeflatesCalendarEvents() throws Exception {
+        final FlightExport.Result result = FlightExport.export(manifest(2), BoardingPass.Channel.DESKTOP, folder.getRoot().toPath(), "9W465");
+        // read through the local headers, as streaming unzippers do
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(result.getArchives().get(0)))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                final int expected = entry.getName().endsWith(".pdf") ? ZipEntry.STORED : ZipEntry.DEFLATED;
+                assertEquals(entry.getName(), expected, entry.getMethod());
+                assertEquals(entry.getName(), entry.getSize(), read(zip).length);
+            }
+        }
+    }
+
+    @Test
+    public void rollsOverToAnotherArchiveKeepingPassesTogether() throws Exception {
+        final FlightExport.Result result = FlightExport.export(manifest(7), BoardingPass.Channel.DESKTOP, folder.getRoot().toPath(), "9W465",
+                FlightExport.Settings.DEFAULT.maxArchiveEntries(5));
+        assertEquals(4, result.getArchives().size());
+        final List<String> names = new ArrayList<>();
+        for (Path archive : result.getArchives()) {
+            try (ZipFile zip = new ZipFile(archive.toFile())) {
+                assertTrue(zip.size() <= 5);
+                assertEquals(0, zip.size() % 2);
+                for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                    names.add(entries.nextElement().getName());
+                }
+            }
+        }
+        assertEquals(14, names.size());
+        assertEquals("9W465/0007-calendar-boarding-event-A1B2C3-Last.ics", names.get(13));
+    }
+
+    @Test
+    public void rollsOverBeforeTheSizeLimit() throws Exception {
+        final FlightExport.Result result = FlightExport.export(manifest(6), BoardingPass.Channel.KIOSK, folder.getRoot().toPath(), "9W465",
+                FlightExport.Settings.DEFAULT.maxArchiveSize(30 * 1024));
+        assertTrue(result.getArchives().size() > 1);
+        for (Path archive : result.getArchives()) {
+            assertTrue(archive + " " + Files.size(archive), Files.size(archive) <= 30 * 1024);
+        }
+    }
+
+    @Test
+    public void onePassengersFailureDoesNotAbortTheExport() throws Exception {
+        final List<BoardingPass> manifest = manifest(4);
+        final Passenger invalidEmail = new Passenger("Bad", "Email", "bad email@company.com", "Economy");
+        manifest.add(2, new BoardingPass(flight, invalidEmail, pnr, "3C", "0099"));
+        final FlightExport.Result result = FlightExport.export(manifest, BoardingPass.Channel.MOBILE, folder.getRoot().toPath(), "9W465");
+        assertEquals(4, result.getExported());
+        assertEquals(1, result.getFailures().size());
+        assertSame(manifest.get(2), result.getFailures().get(0).getBoardingPass());
+        try (ZipFile zip = new ZipFile(result.getArchives().get(0).toFile())) {
+            assertEquals(8, zip.size());
+        }
+    }
+
+    @Test
+    public void archiveThatCannotBeOpenedLeavesTheFullOneIntact() throws Exception {
+        // a directory in the way of the second archive
+        Files.createDirectory(folder.getRoot().toPath().resolve("9W465-002.zip"));
+        try {
+            FlightExport.export(manifest(2), BoardingPass.Channel.DESKTOP, folder.getRoot().toPath(), "9W465",
+                    FlightExport.Settings.DEFAULT.maxArchiveEntries(2));
+            fail("Exported into a directory");
+        } catch (IOException e) {
+            assertTrue(e.toString(), e.getMessage().contains("9W465-002.zip"));
+        }
+        try (ZipFile zip = new ZipFile(folder.getRoot().toPath().resolve("9W465-001.zip").toFile())) {
+            assertEquals(2, zip.size());
+        }
+    }
+
+    @Test
+    public void emptyExportGivesAnEmptyArchive() throws Exception {
+        final FlightExport.Result result = FlightExport.export(Collections.<BoardingPass>emptyList(), BoardingPass.Channel.KIOSK, folder.getRoot().toPath(), "9W465");
+        assertEquals(0, result.getExported());
+        try (ZipFile zip = new ZipFile(result.getArchives().get(0).toFile())) {
+            assertEquals(0, zip.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsArchivesPastTheZipLimits() {
+        FlightExport.Settings.DEFAULT.maxArchiveEntries(70000);
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
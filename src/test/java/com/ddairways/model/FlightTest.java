@@ -0,0 +1,38 @@
+package com.ddairways.model;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class FlightTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai", "Asia/Kolkata");
+    private static final Airport london = new Airport("LHR", "London", "Europe/London");
+    private static final DateTime departure = new DateTime(2020, 1, 1, 4, 30, DateTimeZone.UTC);
+    private static final Flight flight = new Flight("9W", "118", mumbai, london, departure.toDate(), 10);
+
+    @Test
+    public void departureIsFormattedInOriginAirportLocalTime() {
+        assertEquals("10:00", flight.getDepartureTime());
+        assertEquals(new DateTime(2020, 1, 1, 0, 0).toString("dd-MMM-yyyy"), flight.getDepartureDate());
+    }
+
+    @Test
+    public void arrivalIsFormattedInDestinationAirportLocalTime() {
+        assertEquals("14:30", flight.getArrivalTime());
+    }
+
+    @Test
+    public void barcodeDataIsBuiltFromFormattedFields() {
+        final String expected = "9W118" + flight.getDepartureDate() + "BOM10:00LHR14:30";
+        assertEquals(expected, flight.getBarcodeData());
+    }
+
+    @Test
+    public void snapshotIsComputedOnceAndShared() {
+        assertSame(flight.snapshot(), flight.snapshot());
+        assertSame(flight.getBarcodeData(), flight.getBarcodeData());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GroupRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final String pnr = "A1B2C3";
+
+    private static List<BoardingPass> family(int passengers) {
+        List<BoardingPass> family = new ArrayList<>();
+        for (int i = 1; i <= passengers; i++) {
+            final Passenger passenger = new Passenger("First" + i, "Last", "first.last" + i + "@company.com", "Economy");
+            family.add(new BoardingPass(flight, passenger, pnr, "10" + (char) ('A' + i - 1), String.format("%04d", 17 + i), "45C"));
+        }
+        return family;
+    }
+
+    @Test
+    public void onePagePerPassengerReadingLikeTheirOwnPass() throws Exception {
+        final List<BoardingPass> family = family(6);
+        final PdfReader group = new PdfReader(BoardingPass.createPdfKioskGroupBoardingPass(family));
+        assertEquals(6, group.getNumberOfPages());
+        for (int i = 0; i < family.size(); i++) {
+            final byte[] single = family.get(i).render(BoardingPass.Channel.KIOSK).get(0);
+            assertEquals(PdfTextExtractor.getTextFromPage(new PdfReader(single), 1),
+                    PdfTextExtractor.getTextFromPage(group, i + 1));
+        }
+    }
+
+    @Test
+    public void staticLayoutIsWrittenOnce() throws Exception {
+        final String pdf = new String(BoardingPass.createPdfKioskGroupBoardingPass(family(6)), StandardCharsets.ISO_8859_1);
+        assertEquals(1, pdf.split("/Subtype/Form", -1).length - 1);
+    }
+
+    @Test
+    public void smallerThanSeparatePasses() throws Exception {
+        final List<BoardingPass> family = family(6);
+        final RenderOptions compact = RenderOptions.DEFAULT.compact(true);
+        int separately = 0;
+        for (BoardingPass boardingPass : family) {
+            separately += boardingPass.render(BoardingPass.Channel.KIOSK, compact).get(0).length;
+        }
+        final ByteArrayOutputStream group = new ByteArrayOutputStream();
+        BoardingPass.writePdfKioskGroupBoardingPass(family, group, compact);
+        assertTrue(group.size() + " bytes", group.size() < separately);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyGroups() throws Exception {
+        BoardingPass.createPdfKioskGroupBoardingPass(Collections.<BoardingPass>emptyList());
+    }
+}
@@ -0,0 +1,67 @@
+package com.ddairways.model;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class KioskPreviewTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void scalesTheKioskPassToTheScreen() throws Exception {
+        final BufferedImage preview = boardingPass.kioskPreview(1280, false);
+        // the kiosk pass is 595 by 220 points
+        assertEquals(1280, preview.getWidth());
+        assertEquals(Math.round(1280 * 220 / 595f), preview.getHeight());
+    }
+
+    @Test
+    public void barcodeScansInBothModes() throws Exception {
+        for (boolean draft : new boolean[]{false, true}) {
+            final BufferedImage preview = boardingPass.kioskPreview(1280, draft);
+            final BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(preview)));
+            final String text = new MultiFormatReader().decode(bitmap,
+                    Collections.singletonMap(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.PDF_417))).getText();
+            assertTrue(text, text.startsWith(flight.getBarcodeData() + "45C10D0018"));
+            assertTrue(text, text.endsWith(passenger.fullName()));
+        }
+    }
+
+    @Test
+    public void draftDrawsWithoutAntialiasing() throws Exception {
+        // only black and white pixels, the quality preview blends edges
+        assertEquals(2, colors(boardingPass.kioskPreview(640, true)));
+        assertTrue(colors(boardingPass.kioskPreview(640, false)) > 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPreviews() throws Exception {
+        boardingPass.kioskPreview(0, true);
+    }
+
+    private static int colors(BufferedImage image) {
+        final Set<Integer> colors = new HashSet<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                colors.add(image.getRGB(x, y));
+            }
+        }
+        return colors.size();
+    }
+}
@@ -0,0 +1,77 @@
+package com.ddairways.model;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RenderEventTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void everyRenderStageIsRecordedWithItsChannelTypeAndFlight() throws Exception {
+        final Path dir = Files.createTempDirectory("render-events");
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.ddairways.RenderStage").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            BarcodeImageCache.getInstance().clear();
+
+            final Map<BoardingPass.Type, Path> files = new EnumMap<>(BoardingPass.Type.class);
+            files.put(BoardingPass.Type.MOBILE, dir.resolve("mobile.pdf"));
+            files.put(BoardingPass.Type.CALENDAR_EVENT, dir.resolve("event.ics"));
+            boardingPass.render(BoardingPass.Channel.MOBILE, ArtifactSink.toPaths(files));
+
+            try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(dir.resolve("desktop.zip").toFile()))) {
+                final Map<BoardingPass.Type, String> entries = new EnumMap<>(BoardingPass.Type.class);
+                entries.put(BoardingPass.Type.ELECTRONIC, "electronic.pdf");
+                entries.put(BoardingPass.Type.CALENDAR_EVENT, "event.ics");
+                boardingPass.render(BoardingPass.Channel.DESKTOP, ArtifactSink.toZip(zip, entries));
+            }
+            boardingPass.render(BoardingPass.Channel.THERMAL_PRINTER,
+                    ArtifactSink.toPaths(Collections.singletonMap(BoardingPass.Type.KIOSK_ZPL, dir.resolve("kiosk.zpl"))));
+            boardingPass.render(BoardingPass.Channel.MOBILE_WALLET,
+                    ArtifactSink.toPaths(Collections.singletonMap(BoardingPass.Type.MOBILE_WALLET, dir.resolve("wallet.zip"))));
+
+            recording.stop();
+            final Path dump = dir.resolve("render.jfr");
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump);
+        }
+
+        final Set<String> stages = new HashSet<>();
+        long mobilePdfSize = -1;
+        for (RecordedEvent event : events) {
+            stages.add(event.getString("stage"));
+            assertEquals("9W465", event.getString("flight"));
+            if ("PDF".equals(event.getString("stage")) && "MOBILE".equals(event.getString("channel"))
+                    && "MOBILE".equals(event.getString("type"))) {
+                mobilePdfSize = event.getLong("size");
+            }
+        }
+        for (RenderEvent.Stage stage : RenderEvent.Stage.values()) {
+            assertTrue(stage + " not recorded", stages.contains(stage.name()));
+        }
+        assertEquals(Files.size(dir.resolve("mobile.pdf")), mobilePdfSize);
+
+        for (File file : dir.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(dir);
+    }
+}
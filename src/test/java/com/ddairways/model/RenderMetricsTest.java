@@ -0,0 +1,114 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RenderMetricsTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void percentilesAreWithinTheBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000_000L, snapshot.getMaxNanos());
+        assertWithin(500_000_000L, snapshot.getP50Nanos());
+        assertWithin(990_000_000L, snapshot.getP99Nanos());
+        assertWithin(999_000_000L, snapshot.getP999Nanos());
+        assertEquals(1_000_000_000L, snapshot.getPercentileNanos(1));
+    }
+
+    @Test
+    public void snapshotSumsEveryThreadsCounts() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final long nanos = (t + 1) * 1_000_000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    histogram.record(nanos);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(8000, snapshot.getCount());
+        assertEquals(36_000_000_000L, snapshot.getSumNanos());
+        assertEquals(8_000_000L, snapshot.getMaxNanos());
+        assertWithin(4_000_000L, snapshot.getP50Nanos());
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValueOf(index - 1));
+        }
+    }
+
+    @Test
+    public void countsRendersArtifactsAndBytes() throws Exception {
+        final RenderMetrics.Snapshot before = RenderMetrics.getInstance().snapshot();
+        final List<byte[]> rendered = boardingPass.render(BoardingPass.Channel.MOBILE);
+        final RenderMetrics.Snapshot after = RenderMetrics.getInstance().snapshot();
+
+        assertEquals(1, after.getRenders(BoardingPass.Channel.MOBILE).getCount() - before.getRenders(BoardingPass.Channel.MOBILE).getCount());
+        assertEquals(1, after.getArtifacts(BoardingPass.Type.MOBILE).getCount() - before.getArtifacts(BoardingPass.Type.MOBILE).getCount());
+        assertEquals(1, after.getArtifacts(BoardingPass.Type.CALENDAR_EVENT).getCount() - before.getArtifacts(BoardingPass.Type.CALENDAR_EVENT).getCount());
+        assertEquals(rendered.get(0).length, after.getBytes(BoardingPass.Type.MOBILE) - before.getBytes(BoardingPass.Type.MOBILE));
+        assertEquals(rendered.get(1).length, after.getBytes(BoardingPass.Type.CALENDAR_EVENT) - before.getBytes(BoardingPass.Type.CALENDAR_EVENT));
+        assertTrue(after.getRenders(BoardingPass.Channel.MOBILE).getMaxNanos() > 0);
+    }
+
+    @Test
+    public void countsFailuresByExceptionType() throws Exception {
+        final long before = errors(RenderMetrics.getInstance().snapshot());
+        try {
+            boardingPass.render(BoardingPass.Channel.KIOSK, type -> {
+                throw new IOException("disk full");
+            });
+            fail("render into a failing sink should fail");
+        } catch (IOException expected) {
+        }
+        assertEquals(1, errors(RenderMetrics.getInstance().snapshot()) - before);
+    }
+
+    @Test
+    public void exposesTextFormat() throws Exception {
+        boardingPass.render(BoardingPass.Channel.KIOSK);
+        final String exposition = RenderMetrics.getInstance().exposition();
+        assertTrue(exposition.contains("# TYPE boarding_pass_render_seconds summary\n"));
+        assertTrue(exposition.contains("boarding_pass_render_seconds{channel=\"KIOSK\",quantile=\"0.99\"} "));
+        assertTrue(exposition.contains("boarding_pass_artifact_seconds_count{type=\"KIOSK\"} "));
+        assertTrue(exposition.contains("boarding_pass_artifact_bytes_total{type=\"KIOSK\"} "));
+    }
+
+    private static long errors(RenderMetrics.Snapshot snapshot) {
+        final Long errors = snapshot.getRenderErrors().get(IOException.class.getName());
+        return errors == null ? 0 : errors;
+    }
+
+    // percentiles are reported as the top of their bucket, at most ~3% above the value
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " below " + expected, actual >= expected);
+        assertTrue(actual + " too far above " + expected, actual <= expected * 1.04);
+    }
+}
@@ -0,0 +1,208 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RenderServiceTest {
+    private static final String FORM = "flightCode=9W&flightNumber=465&origin=BOM&originCity=Mumbai"
+            + "&destination=MAA&destinationCity=Chennai&departure=2019-03-21T10:45&durationInHours=2"
+            + "&firstName=First&lastName=Last&email=" + encode("first.last@company.com") + "&travelClass=Economy"
+            + "&pnr=A1B2C3&seat=10D&seqNo=0018&gate=45C";
+
+    @Test
+    public void rendersTheKioskPassAsPdf() throws Exception {
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            final HttpURLConnection connection = post(service, FORM + "&channel=KIOSK");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("application/pdf", connection.getContentType());
+            assertEquals("attachment; filename=\"kiosk-boarding-pass-A1B2C3-Last.pdf\"", connection.getHeaderField("Content-Disposition"));
+            assertTrue(new String(readAll(connection.getInputStream()), StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+        }
+    }
+
+    @Test
+    public void zipsTheArtifactsOfMultiArtifactChannels() throws Exception {
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            final HttpURLConnection connection = post(service, FORM + "&channel=MOBILE");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("application/zip", connection.getContentType());
+            final List<String> entries = new ArrayList<>();
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(readAll(connection.getInputStream())))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    entries.add(entry.getName());
+                }
+            }
+            assertEquals(2, entries.size());
+            assertEquals("mobile-boarding-pass-A1B2C3-Last.pdf", entries.get(0));
+            assertEquals("calendar-boarding-event-A1B2C3-Last.ics", entries.get(1));
+        }
+    }
+
+    @Test
+    public void escapesTheFileNameOfTheAttachment() throws Exception {
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            final String form = FORM.replace("lastName=Last", "lastName=" + encode("L\u00e1st\"; x=/../y"));
+            final HttpURLConnection connection = post(service, form + "&channel=KIOSK");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("attachment; filename=\"kiosk-boarding-pass-A1B2C3-L_st___x__.._y.pdf\"; "
+                            + "filename*=UTF-8''kiosk-boarding-pass-A1B2C3-L%C3%A1st%22%3B%20x%3D%2F..%2Fy.pdf",
+                    connection.getHeaderField("Content-Disposition"));
+        }
+    }
+
+    @Test
+    public void failedRendersDoNotExposeTheCause() throws Exception {
+        final char[] name = new char[3000];
+        Arrays.fill(name, 'N');
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            // too long a name for the barcode
+            final HttpURLConnection connection = post(service, FORM.replace("firstName=First", "firstName=" + new String(name)) + "&channel=DESKTOP");
+            assertEquals(500, connection.getResponseCode());
+            assertEquals("Render failed", new String(readAll(connection.getErrorStream()), StandardCharsets.UTF_8));
+            assertTrue(get(service, "/metrics").contains("boarding_pass_service_requests_total{outcome=\"failed\"} 1\n"));
+        }
+    }
+
+    @Test
+    public void rejectsIncompleteForms() throws Exception {
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            assertEquals(400, post(service, "channel=KIOSK&pnr=A1B2C3").getResponseCode());
+            assertEquals(400, post(service, FORM + "&channel=FAX").getResponseCode());
+        }
+    }
+
+    @Test
+    public void shedsLoadWhenWorkersAndQueueAreBusy() throws Exception {
+        final RenderService.Settings settings = RenderService.Settings.DEFAULT.workers(1).queueCapacity(0);
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0), settings)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch busy = new CountDownLatch(1);
+            service.workers().execute(() -> {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            busy.await();
+            final HttpURLConnection connection = post(service, FORM + "&channel=KIOSK");
+            assertEquals(503, connection.getResponseCode());
+            assertEquals("1", connection.getHeaderField("Retry-After"));
+            release.countDown();
+            assertTrue(get(service, "/metrics").contains("boarding_pass_service_requests_total{outcome=\"shed\"} 1\n"));
+        }
+    }
+
+    @Test
+    public void timesOutSlowRenders() throws Exception {
+        final RenderService.Settings settings = RenderService.Settings.DEFAULT.workers(1).timeout(Duration.ofMillis(50));
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0), settings)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            service.workers().execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // queued behind the blocked worker past its deadline
+            assertEquals(504, post(service, FORM + "&channel=KIOSK").getResponseCode());
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void rejectsOversizedForms() throws Exception {
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0))) {
+            final StringBuilder form = new StringBuilder(FORM).append("&channel=KIOSK&padding=");
+            while (form.length() <= 16 * 1024) {
+                form.append("xxxxxxxxxxxxxxxx");
+            }
+            assertEquals(413, post(service, form.toString()).getResponseCode());
+        }
+    }
+
+    @Test
+    public void slowRequestBodiesDoNotHoldUpOtherRequests() throws Exception {
+        final RenderService.Settings settings = RenderService.Settings.DEFAULT.workers(2).timeout(Duration.ofSeconds(5));
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0), settings);
+             Socket slow = new Socket("localhost", service.getAddress().getPort())) {
+            // announces a form and never sends it
+            slow.getOutputStream().write(("POST /render HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Type: application/x-www-form-urlencoded\r\nContent-Length: 500\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            slow.getOutputStream().flush();
+            final HttpURLConnection connection = post(service, FORM + "&channel=KIOSK");
+            connection.setReadTimeout(3000);
+            assertEquals(200, connection.getResponseCode());
+        }
+    }
+
+    @Test
+    public void runsOnVirtualThreadsWhenAvailable() throws Exception {
+        final RenderService.Settings settings = RenderService.Settings.DEFAULT.virtualThreads(true);
+        try (RenderService service = RenderService.start(new InetSocketAddress("localhost", 0), settings)) {
+            assertEquals(Runtime.version().feature() >= 21, service.usesVirtualThreads());
+            assertEquals(200, post(service, FORM + "&channel=DESKTOP").getResponseCode());
+        }
+    }
+
+    private static HttpURLConnection post(RenderService service, String form) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url(service, "/render").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private static String get(RenderService service, String path) throws IOException {
+        return new String(readAll(url(service, path).openStream()), StandardCharsets.UTF_8);
+    }
+
+    private static URL url(RenderService service, String path) throws IOException {
+        return new URL("http://localhost:" + service.getAddress().getPort() + path);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
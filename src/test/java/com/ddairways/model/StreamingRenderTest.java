@@ -0,0 +1,122 @@
+package com.ddairways.model;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class StreamingRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void streamsMobileArtifactsToPaths() throws Exception {
+        final Path pdf = folder.getRoot().toPath().resolve("mobile.pdf");
+        final Path ics = folder.getRoot().toPath().resolve("event.ics");
+        final Map<BoardingPass.Type, Path> files = new EnumMap<>(BoardingPass.Type.class);
+        files.put(BoardingPass.Type.MOBILE, pdf);
+        files.put(BoardingPass.Type.CALENDAR_EVENT, ics);
+        boardingPass.render(BoardingPass.Channel.MOBILE, ArtifactSink.toPaths(files));
+
+        final String text = PdfTextExtractor.getTextFromPage(new PdfReader(Files.readAllBytes(pdf)), 1);
+        assertTrue(text.endsWith("Mobile Boarding Pass"));
+        final Calendar calendar = new CalendarBuilder().build(new ByteArrayInputStream(Files.readAllBytes(ics)));
+        assertEquals(1, calendar.getComponents("VEVENT").size());
+    }
+
+    @Test
+    public void streamsKioskArtifactToAChannelLeavingItOpen() throws Exception {
+        final Path pdf = folder.getRoot().toPath().resolve("kiosk.pdf");
+        try (FileChannel channel = FileChannel.open(pdf, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final Map<BoardingPass.Type, FileChannel> channels = new EnumMap<>(BoardingPass.Type.class);
+            channels.put(BoardingPass.Type.KIOSK, channel);
+            boardingPass.render(BoardingPass.Channel.KIOSK, ArtifactSink.toChannels(channels));
+            assertTrue(channel.isOpen());
+        }
+        final String text = PdfTextExtractor.getTextFromPage(new PdfReader(Files.readAllBytes(pdf)), 1);
+        assertTrue(text.startsWith("DD Airways Kiosk Check-In Kiosk Check-In"));
+    }
+
+    @Test
+    public void streamsDesktopArtifactsIntoZipEntriesInChannelOrder() throws Exception {
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        final Map<BoardingPass.Type, String> entryNames = new EnumMap<>(BoardingPass.Type.class);
+        entryNames.put(BoardingPass.Type.ELECTRONIC, "electronic.pdf");
+        entryNames.put(BoardingPass.Type.CALENDAR_EVENT, "event.ics");
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            boardingPass.render(BoardingPass.Channel.DESKTOP, ArtifactSink.toZip(zip, entryNames));
+        }
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry first = zip.getNextEntry();
+            assertEquals("electronic.pdf", first.getName());
+            ZipEntry second = zip.getNextEntry();
+            assertEquals("event.ics", second.getName());
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsWhenAnArtifactHasNoDestination() throws Exception {
+        final Map<BoardingPass.Type, ByteArrayOutputStream> streams = new EnumMap<>(BoardingPass.Type.class);
+        streams.put(BoardingPass.Type.MOBILE, new ByteArrayOutputStream());
+        boardingPass.render(BoardingPass.Channel.MOBILE, ArtifactSink.toStreams(streams));
+    }
+
+    @Test
+    public void rendersOneArtifactAtATimeOnTheCallingThread() throws Exception {
+        final Map<BoardingPass.Type, ByteArrayOutputStream> streams = new EnumMap<>(BoardingPass.Type.class);
+        streams.put(BoardingPass.Type.ELECTRONIC, new ByteArrayOutputStream());
+        streams.put(BoardingPass.Type.CALENDAR_EVENT, new ByteArrayOutputStream());
+        final ArtifactSink sink = ArtifactSink.toStreams(streams);
+        final List<Thread> threads = new ArrayList<>();
+        boardingPass.render(BoardingPass.Channel.DESKTOP, ArtifactSink.oneAtATime(type -> {
+            threads.add(Thread.currentThread());
+            return sink.open(type);
+        }));
+        assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void interruptedRenderStopsBeforeItsNextArtifact() throws Exception {
+        final Map<BoardingPass.Type, ByteArrayOutputStream> streams = new EnumMap<>(BoardingPass.Type.class);
+        streams.put(BoardingPass.Type.KIOSK, new ByteArrayOutputStream());
+        Thread.currentThread().interrupt();
+        try {
+            boardingPass.render(BoardingPass.Channel.KIOSK, ArtifactSink.oneAtATime(ArtifactSink.toStreams(streams)));
+            fail("Rendered while interrupted");
+        } catch (InterruptedIOException e) {
+            assertEquals(0, streams.get(BoardingPass.Type.KIOSK).size());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ddairways.model;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemplateRenderTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+    private static final BoardingPass another = new BoardingPass(flight,
+            new Passenger("Another", "Passenger", "another@company.com", "Business"), "Z9Y8X7", "2A", "0001", "12");
+
+    @Test
+    public void stampedGroupPagesReadLikeTheRegularKioskPasses() throws Exception {
+        final byte[] group = BoardingPass.createPdfKioskGroupBoardingPass(Arrays.asList(boardingPass, another));
+        assertSamePass(boardingPass.render(BoardingPass.Channel.KIOSK).get(0), group, 1);
+        // the template is reused for the other passenger
+        assertSamePass(another.render(BoardingPass.Channel.KIOSK).get(0), group, 2);
+    }
+
+    private static void assertSamePass(byte[] regular, byte[] group, int page) throws Exception {
+        assertEquals(text(regular, 1), text(group, page));
+
+        final List<ImageRenderInfo> regularImages = images(regular, 1);
+        final List<ImageRenderInfo> stampedImages = images(group, page);
+        assertEquals(regularImages.size(), stampedImages.size());
+        for (int i = 0; i < regularImages.size(); i++) {
+            assertEquals(regularImages.get(i).getImageCTM().toString(), stampedImages.get(i).getImageCTM().toString());
+            assertEquals(decode(regularImages.get(i)), decode(stampedImages.get(i)));
+        }
+    }
+
+    private static String text(byte[] pdf, int page) throws Exception {
+        return PdfTextExtractor.getTextFromPage(new PdfReader(pdf), page);
+    }
+
+    private static String decode(ImageRenderInfo image) throws Exception {
+        final BufferedImageLuminanceSource source = new BufferedImageLuminanceSource(image.getImage().getBufferedImage());
+        return new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source))).getText();
+    }
+
+    private static List<ImageRenderInfo> images(byte[] pdf, int page) throws Exception {
+        final List<ImageRenderInfo> images = new ArrayList<>();
+        new PdfReaderContentParser(new PdfReader(pdf)).processContent(page, new RenderListener() {
+            public void beginTextBlock() {
+            }
+
+            public void renderText(TextRenderInfo renderInfo) {
+            }
+
+            public void endTextBlock() {
+            }
+
+            public void renderImage(ImageRenderInfo renderInfo) {
+                images.add(renderInfo);
+            }
+        });
+        return images;
+    }
+}
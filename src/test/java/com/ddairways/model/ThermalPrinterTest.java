@@ -0,0 +1,69 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ThermalPrinterTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void printsTheKioskPassWithPrinterBarcodes() throws Exception {
+        final List<byte[]> rendered = boardingPass.render(BoardingPass.Channel.THERMAL_PRINTER);
+        assertEquals(1, rendered.size());
+        final String zpl = new String(rendered.get(0), StandardCharsets.UTF_8);
+        assertTrue(zpl.startsWith("^XA"));
+        assertTrue(zpl.trim().endsWith("^XZ"));
+        // both stubs carry the fields and headers of the PDF pass
+        for (String field : new String[]{"PNR: A1B2C3", "SEAT: 10D", "GATE: 45C", "SEQ: 0018", "FLT: 9W465",
+                "DD Airways Kiosk Check-In", "Kiosk Check-In"}) {
+            assertTrue(field, zpl.contains("^FD" + field + "^FS"));
+        }
+        // one PDF417 barcode per stub, encoding the kiosk payload
+        assertEquals(2, zpl.split("\\^B7N", -1).length - 1);
+        // left stub 300 points wide: 3 dot modules, 12 columns; right stub as below
+        assertTrue(zpl, zpl.contains("^BY3^B7N,15,2,12,,N^FH^FD" + flight.getBarcodeData() + "45C10D0018"));
+        assertTrue(zpl, zpl.contains("^BY2^B7N,10,2,5,,N^FH^FD" + flight.getBarcodeData() + "45C10D0018"));
+        assertTrue(zpl.contains(flight.getBarcodeData() + "45C10D0018"));
+        assertFalse(zpl.contains("%PDF"));
+    }
+
+    @Test
+    public void escapesFieldData() {
+        final String zpl = new ZplLabel(595, 220).text(10, 10, 12, "A^B~C_D").toString();
+        assertTrue(zpl, zpl.contains("^FH^FDA_5EB_7EC_5FD^FS"));
+    }
+
+    @Test
+    public void convertsPointsToPrinterDots() {
+        final String zpl = new ZplLabel(72, 36).text(36, 18, 12, "x").toString();
+        assertTrue(zpl, zpl.startsWith("^XA^CI28^PW203^LL102^LH0,0"));
+        // baseline 18 points above the bottom, 18 points from the top
+        assertTrue(zpl, zpl.contains("^FT102,51^A0N,34,0"));
+    }
+
+    @Test
+    public void barcodesFitTheirStub() {
+        final String zpl = new ZplLabel(595, 220).pdf417(420, 60, 120, 60, "M1LAST/FIRST").toString();
+        // 120 points are 338 dots: 5 columns of 2 dot modules, 17 * (5 + 4) + 1 modules
+        assertTrue(zpl, zpl.contains("^FO1184,451^BY2^B7N,10,2,5,,N^FH^FDM1LAST/FIRST^FS\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBarcodesWithoutRoom() {
+        new ZplLabel(595, 220).pdf417(0, 60, 20, 60, "M1LAST/FIRST");
+    }
+
+    @Test
+    public void deliveredAsZplFile() {
+        assertEquals("kiosk-boarding-pass-A1B2C3-Last.zpl", boardingPass.fileName(BoardingPass.Type.KIOSK_ZPL));
+    }
+}
@@ -0,0 +1,67 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Utf8WriterTest {
+    private final Utf8Writer writer = new Utf8Writer();
+
+    @Test
+    public void encodesAsOutputStreamWriter() throws Exception {
+        // ASCII, two and three byte chars, a surrogate pair, unpaired surrogates
+        final String text = "Mumbai \u00e9\u0915 \u2708 \ud83d\udeeb \ud83d. \udeeb \ud83d";
+        assertArrayEquals(expected(text), written(text));
+    }
+
+    @Test
+    public void carriesSurrogatePairsAcrossFlushes() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("\u2708\ud83d\udeeb");
+        }
+        assertArrayEquals(expected(text.toString()), written(text.toString()));
+    }
+
+    @Test
+    public void leavesTheDestinationOpenAndCanBeReused() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new AssertionError("destination closed");
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            out.reset();
+            try (Writer w = writer.bind(out)) {
+                w.write("9W465 \u2708");
+            }
+            assertEquals("9W465 \u2708", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private byte[] written(String text) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer w = writer.bind(out)) {
+            // one char at a time, as ical4j folds
+            for (int i = 0; i < text.length(); i++) {
+                w.write(text.charAt(i));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] expected(String text) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            w.write(text);
+        }
+        return out.toByteArray();
+    }
+}
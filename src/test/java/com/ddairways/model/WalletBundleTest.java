@@ -0,0 +1,90 @@
+package com.ddairways.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+public class WalletBundleTest {
+    private static final Airport mumbai = new Airport("BOM", "Mumbai");
+    private static final Airport chennai = new Airport("MAA", "Chennai");
+    private static final org.joda.time.DateTime departure = org.joda.time.DateTime.now();
+    private static final Flight flight = new Flight("9W", "465", mumbai, chennai, departure.toDate(), 2);
+    private static final Passenger passenger = new Passenger("First", "Last", "first.last@company.com", "Economy");
+    private static final BoardingPass boardingPass = new BoardingPass(flight, passenger, "A1B2C3", "10D", "0018", "45C");
+
+    @Test
+    public void bundlesPassFieldsBarcodePayloadAndManifest() throws Exception {
+        final Map<String, String> files = unzip(boardingPass.render(BoardingPass.Channel.MOBILE_WALLET).get(0));
+        assertArrayEquals(new String[]{"pass.json", "barcode.txt", "manifest.json"}, files.keySet().toArray());
+
+        final String pass = files.get("pass.json");
+        for (String field : new String[]{"\"firstName\":\"First\"", "\"lastName\":\"Last\"", "\"travelClass\":\"Economy\"",
+                "\"code\":\"9W\"", "\"number\":\"465\"", "\"origin\":\"BOM\"", "\"destination\":\"MAA\"",
+                "\"departureDate\":\"" + flight.getDepartureDate() + "\"", "\"pnr\":\"A1B2C3\"", "\"seat\":\"10D\"",
+                "\"seqNo\":\"0018\"", "\"gate\":\"45C\"", "\"format\":\"AZTEC\"", "\"organizationName\":\"DD Airways\""}) {
+            assertTrue(field, pass.contains(field));
+        }
+        // the payload the mobile PDF's Aztec barcode encodes
+        final String payload = flight.getBarcodeData() + "10D0018" + passenger.fullName();
+        assertEquals(payload, files.get("barcode.txt"));
+        assertTrue(pass.contains("\"message\":\"" + payload + "\""));
+    }
+
+    @Test
+    public void manifestHashesEveryFile() throws Exception {
+        final Map<String, String> files = unzip(boardingPass.render(BoardingPass.Channel.MOBILE_WALLET).get(0));
+        final String manifest = files.get("manifest.json");
+        for (String name : new String[]{"pass.json", "barcode.txt"}) {
+            final String hash = WalletBundle.sha256(files.get(name).getBytes(StandardCharsets.UTF_8));
+            assertTrue(name, manifest.contains("\"" + name + "\":\"" + hash + "\""));
+        }
+        assertEquals(64, WalletBundle.sha256(new byte[0]).length());
+    }
+
+    @Test
+    public void bundleIsAFractionOfThePdfAndDeterministic() throws Exception {
+        final byte[] bundle = boardingPass.render(BoardingPass.Channel.MOBILE_WALLET).get(0);
+        final byte[] pdf = boardingPass.render(BoardingPass.Channel.MOBILE).get(0);
+        final byte[] compactPdf = boardingPass.render(BoardingPass.Channel.MOBILE, RenderOptions.DEFAULT.compact(true)).get(0);
+        assertTrue(bundle.length + " of " + pdf.length, bundle.length * 5 < pdf.length);
+        assertTrue(bundle.length + " of " + compactPdf.length, bundle.length < compactPdf.length);
+        assertArrayEquals(bundle, boardingPass.render(BoardingPass.Channel.MOBILE_WALLET).get(0));
+    }
+
+    @Test
+    public void writesEscapedJson() {
+        final Map<String, Object> object = new LinkedHashMap<>();
+        object.put("name", "O\"Brien \\ \n");
+        object.put("count", 2);
+        object.put("nested", new LinkedHashMap<String, Object>());
+        assertEquals("{\"name\":\"O\\\"Brien \\\\ \\u000a\",\"count\":2,\"nested\":{}}", WalletBundle.json(object));
+    }
+
+    @Test
+    public void deliveredAsZipFile() {
+        assertEquals("mobile-wallet-pass-A1B2C3-Last.zip", boardingPass.fileName(BoardingPass.Type.MOBILE_WALLET));
+    }
+
+    private static Map<String, String> unzip(byte[] zip) throws Exception {
+        final Map<String, String> files = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                    content.write(buffer, 0, n);
+                }
+                files.put(entry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return files;
+    }
+}